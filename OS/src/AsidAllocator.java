@@ -0,0 +1,151 @@
+import java.util.Arrays;
+
+/**
+ * AsidAllocator class.
+ * --------------------
+ * Hands out address-space identifiers (ASIDs). Every TLB entry is tagged
+ * with the ASID of the process that loaded it, so a context switch only has
+ * to tell the CPU's TLB which ASID is now current instead of flushing it:
+ * a process that comes back to a CPU finds its translations still there.
+ *
+ * There are only `count` ASIDs. They are allocated lazily, the first time a
+ * process is dispatched in the current generation. When none is left the
+ * generation rolls over: every TLB is flushed, all ASIDs become free, the
+ * processes on a CPU in the kernel right now get new ones, and every other process
+ * gets one the next time it is dispatched (its old ASID belongs to an older
+ * generation and is never matched again).
+ *
+ * When a process terminates its ASID is released: its entries are dropped
+ * from every TLB, and the ASID can be reused within the same generation.
+ *
+ * The TLB of a CPU whose process is running in user mode is never changed
+ * directly: its flush and invalidations are deferred to the process's next
+ * kernel entry, where the scheduler also gives it an ASID of the current
+ * generation (until then it keeps its old one, which is safe because no other
+ * process can run on that CPU in the meantime).
+ *
+ * Only the kernel thread calls this class.
+ */
+public class AsidAllocator {
+    private final int count;
+
+    // ASIDs taken in the current generation, one bit each
+    private final long[] used;
+
+    // Lowest word of used that may have a free ASID
+    private int searchHint = 0;
+
+    private long generation = 1;
+
+    // How often the ASIDs ran out and every TLB was flushed
+    public long rollovers = 0;
+
+    /**
+     * Constructor.
+     * @param count number of ASIDs per generation (1 = flush whenever another process is dispatched)
+     * @return void
+     * @throws IllegalArgumentException if count is not positive
+     */
+    public AsidAllocator(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("There must be at least one ASID");
+        }
+        this.count = count;
+        used = new long[(count + 63) >>> 6];
+    }
+
+    /**
+     * Returns the ASID of a process that is being dispatched, giving it one
+     * (and rolling the generation over if none is free) when it has none in
+     * the current generation.
+     * @param p the process being dispatched (already the running process of its CPU)
+     * @param cpus all CPUs, whose stopped running processes keep a valid ASID across a rollover
+     * @return int the ASID to make current on p's CPU
+     */
+    public int Activate(PCB p, Cpu[] cpus) {
+        if (p.asidGeneration == generation) {
+            return p.asid;
+        }
+        int asid = Take();
+        if (asid == -1) {
+            Rollover(cpus);
+            if (p.asidGeneration == generation) {
+                return p.asid;          // it is on a CPU in the kernel, so the rollover renumbered it
+            }
+            asid = Take();
+        }
+        p.asid = asid;
+        p.asidGeneration = generation;
+        return asid;
+    }
+
+    /**
+     * Releases the ASID of a terminating process and drops its TLB entries.
+     * @param p the process
+     * @param cpus all CPUs
+     * @return void
+     */
+    public void Release(PCB p, Cpu[] cpus) {
+        if (p.asidGeneration == generation) {
+            Hardware.InvalidateAsid(p.asid, cpus);
+            used[p.asid >>> 6] &= ~(1L << p.asid);
+            searchHint = Math.min(searchHint, p.asid >>> 6);
+        }
+        p.asidGeneration = 0;
+    }
+
+    /** @return the current generation */
+    public long Generation() {
+        return generation;
+    }
+
+    /**
+     * Takes the lowest free ASID.
+     * @return int the ASID, or -1 if all are taken
+     */
+    private int Take() {
+        for (int w = searchHint; w < used.length; w++) {
+            long free = ~used[w];
+            if (free != 0) {
+                int asid = (w << 6) + Long.numberOfTrailingZeros(free);
+                if (asid >= count) {
+                    break;
+                }
+                used[w] |= 1L << asid;
+                searchHint = w;
+                return asid;
+            }
+        }
+        searchHint = used.length;
+        return -1;
+    }
+
+    /**
+     * Starts a new generation: flushes every TLB, frees every ASID and
+     * renumbers the processes on a CPU that are stopped in the kernel
+     * (CPUs in user mode flush and renumber at their next kernel entry).
+     * @param cpus all CPUs
+     * @return void
+     */
+    private void Rollover(Cpu[] cpus) {
+        generation++;
+        rollovers++;
+        Arrays.fill(used, 0);
+        searchHint = 0;
+        for (Cpu c : cpus) {
+            if (c.userMode) {
+                Hardware.tlbs[c.id].DeferFlush();
+            } else {
+                Hardware.tlbs[c.id].Flush();
+            }
+        }
+        for (Cpu c : cpus) {
+            PCB running = c.currentRunning;
+            if (running != null && !c.userMode && running.asidGeneration != generation) {
+                running.asid = Take();
+                running.asidGeneration = generation;
+                Hardware.tlbs[c.id].SetAsid(running.asid);
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+import java.util.Arrays;
+
+/**
+ * BenchmarkContextSwitch process.
+ * -------------------------------
+ * Measures the wall-clock cost of handing the CPU between a userland
+ * process thread and the Kernel thread.
+ *
+ * Two round trips are measured:
+ *   1. OS.SubmitRing() of an empty ring → process → kernel → same process
+ *   2. OS.SwitchProcess()               → process → kernel → (scheduler choice) → process
+ * OS.GetPID() is timed as well; it is answered on the caller's thread
+ * without entering the kernel, so it shows the cost of the fast path.
+ *
+ * Each round trip is timed individually with System.nanoTime() after a
+ * warm-up phase, and the median, p99 and mean latencies are printed.
+ * The median is the number to compare between kernel versions: it is not
+ * affected by the occasional quantum handed to another runnable process.
+ */
+public class BenchmarkContextSwitch extends UserlandProcess {
+    private static final int WARMUP = 500;        // untimed round trips to warm up the JIT
+    private static final int ITERATIONS = 5000;   // timed round trips per measurement
+    // SwitchProcess may hand a whole quantum to another process, so it is sampled less often
+    private static final int SWITCH_ITERATIONS = 1000;
+
+    @Override
+    public void main() {
+        System.out.println("\n===== Benchmark: Context Switch Round Trip =====");
+
+        Report("Kernel round trip", MeasureKernelRoundTrip());
+        Report("SwitchProcess round trip", MeasureSwitchProcess());
+        Report("GetPID (fast path)", MeasureGetPid());
+
+        System.out.println("===== End of BenchmarkContextSwitch =====");
+        OS.Exit();
+    }
+
+    /**
+     * Times ITERATIONS kernel entries that do no work (an empty SyscallRing)
+     * after WARMUP untimed calls.
+     * @return long[] latency of each timed call, in nanoseconds
+     */
+    private long[] MeasureKernelRoundTrip() {
+        SyscallRing empty = new SyscallRing(1);
+        for (int i = 0; i < WARMUP; i++) {
+            OS.SubmitRing(empty);
+        }
+        long[] samples = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long begin = System.nanoTime();
+            OS.SubmitRing(empty);
+            samples[i] = System.nanoTime() - begin;
+        }
+        return samples;
+    }
+
+    /**
+     * Times ITERATIONS calls of OS.GetPID() after WARMUP untimed calls.
+     * @return long[] latency of each timed call, in nanoseconds
+     */
+    private long[] MeasureGetPid() {
+        for (int i = 0; i < WARMUP; i++) {
+            OS.GetPID();
+        }
+        long[] samples = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long begin = System.nanoTime();
+            OS.GetPID();
+            samples[i] = System.nanoTime() - begin;
+        }
+        return samples;
+    }
+
+    /**
+     * Times SWITCH_ITERATIONS calls of OS.SwitchProcess() after a shorter untimed warm-up.
+     * @return long[] latency of each timed call, in nanoseconds
+     */
+    private long[] MeasureSwitchProcess() {
+        for (int i = 0; i < WARMUP / 5; i++) {
+            OS.SwitchProcess();
+        }
+        long[] samples = new long[SWITCH_ITERATIONS];
+        for (int i = 0; i < SWITCH_ITERATIONS; i++) {
+            long begin = System.nanoTime();
+            OS.SwitchProcess();
+            samples[i] = System.nanoTime() - begin;
+        }
+        return samples;
+    }
+
+    /**
+     * Prints median, p99 and mean of the samples in microseconds.
+     * @param label name of the measurement
+     * @param samples latencies in nanoseconds (sorted in place)
+     */
+    private void Report(String label, long[] samples) {
+        Arrays.sort(samples);
+        long total = 0;
+        for (long s : samples) total += s;
+        System.out.printf("%-26s median=%8.1f us  p99=%9.1f us  mean=%9.1f us  (n=%d)%n",
+                label,
+                samples[samples.length / 2] / 1000.0,
+                samples[(int) (samples.length * 0.99)] / 1000.0,
+                total / 1000.0 / samples.length,
+                samples.length);
+    }
+}
@@ -0,0 +1,378 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * BenchmarkKernelHotPaths process.
+ * --------------------------------
+ * Baseline microbenchmark suite for the kernel hot paths, run with the
+ * Microbenchmark harness (warm-up iterations, then measurement iterations
+ * reported in microseconds per operation).
+ *
+ * Benchmarks:
+ *   syscall.getPid          OS.GetPID() (answered without entering the kernel)
+ *   syscall.roundTrip       OS.SubmitRing() of an empty ring: one full kernel entry
+ *   syscall.switchProcess   OS.SwitchProcess()
+ *   memory.tlbHit           Hardware.Read() of a page already in the TLB
+ *   memory.tlbMiss          Hardware.Read() cycling over ways + 1 pages of one TLB set (always misses)
+ *   memory.copy4kBytewise   4 KB spanning 5 pages copied out with Hardware.Read(), one byte at a time
+ *   memory.copy4kBlock      the same 4 KB copied out with one Hardware.ReadBlock()
+ *   memory.faultFreeFrame   first touch of a page while free frames are available
+ *   memory.faultSwap        first touch of a page while memory is full (PageSwap)
+ *   message.pingPong        SendMessage() to an echo process + WaitForMessage() for the reply
+ *   file.write / file.read  Seek + 1 KB Write / Read on a FakeFileSystem file
+ *
+ * For reproducible numbers:
+ *   - all input data comes from a Random with a fixed SEED
+ *   - iteration counts are fixed; only the score per iteration varies
+ *   - run it alone, e.g. "java -Xms256m -Xmx256m Main --cpus 1", with no
+ *     other test processes enabled in Init
+ * Compare the Median column between runs; the CSV block at the end can be
+ * saved as the baseline for later changes.
+ *
+ * The swap benchmark starts hogCount processes that together own more pages
+ * than there are physical frames, so every first touch has to evict a page.
+ */
+public class BenchmarkKernelHotPaths extends UserlandProcess {
+    private static final long SEED = 42;
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASUREMENT_ITERATIONS = 10;
+
+    // Pages a process may own (size of its virtual memory mapping table)
+    private static final int PAGES = 100;
+    // Enough hog pages to keep every physical frame in use, plus one extra process worth
+    private final int hogCount = Kernel.frames.Capacity() / PAGES + 2;
+
+    // Message types exchanged with the helper processes
+    private static final int MSG_PING = 1;
+    private static final int MSG_STOP = 2;
+    private static final int MSG_READY = 3;
+    private static final int MSG_TOUCH = 4;
+
+    private static final String FILE_NAME = "benchmark_kernel_hot_paths.dat";
+
+    private final Random random = new Random(SEED);
+    private final List<Microbenchmark.Result> results = new ArrayList<>();
+
+    /**
+     * Echo process.
+     * Replies to every ping with the same payload until it receives MSG_STOP.
+     */
+    public static class Echo extends UserlandProcess {
+        @Override
+        public void main() {
+            KernelMessage reply = new KernelMessage();
+            while (true) {
+                KernelMessage km = OS.WaitForMessage();
+                if (km.messageType == MSG_STOP) {
+                    return;
+                }
+                reply.targetPid = km.senderPid;
+                reply.messageType = km.messageType;
+                reply.message = km.message;
+                OS.SendMessage(reply);
+            }
+        }
+    }
+
+    /**
+     * Hog process.
+     * Allocates and touches PAGES pages, then on every MSG_TOUCH touches them all
+     * again (faulting back in whatever was swapped out) and replies MSG_READY.
+     * Exits on MSG_STOP.
+     */
+    public static class Hog extends UserlandProcess {
+        private final int ownerPid;
+
+        public Hog(int ownerPid) {
+            this.ownerPid = ownerPid;
+        }
+
+        @Override
+        public void main() {
+            int base = OS.AllocateMemory(PAGES * Hardware.sizeOfPage);
+            KernelMessage ready = new KernelMessage(0, ownerPid, MSG_READY, new byte[0]);
+            while (true) {
+                for (int p = 0; p < PAGES; p++) {
+                    Hardware.Write(base + p * Hardware.sizeOfPage, (byte) p);
+                }
+                OS.SendMessage(ready);
+                if (OS.WaitForMessage().messageType == MSG_STOP) {
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void main() {
+        System.out.println("\n===== Benchmark: Kernel Hot Paths =====");
+
+        BenchmarkSyscalls();
+        BenchmarkTlb();
+        BenchmarkFaultFreeFrame();
+        BenchmarkMessages();
+        BenchmarkFile();
+        // last: fills physical memory with hog processes
+        BenchmarkFaultSwap();
+
+        Microbenchmark.PrintHeader();
+        for (Microbenchmark.Result r : results) {
+            Microbenchmark.Print(r);
+        }
+        System.out.println("--- CSV (name,median_ns,mean_ns,stddev_ns) ---");
+        for (Microbenchmark.Result r : results) {
+            System.out.printf("%s,%.1f,%.1f,%.1f%n", r.name, r.Median(), r.Mean(), r.StdDev());
+        }
+        System.out.println("===== End of BenchmarkKernelHotPaths =====");
+        OS.Exit();
+    }
+
+    /**
+     * Runs a benchmark with the suite's iteration counts and keeps its result.
+     * @param benchmark the benchmark to run
+     * @return void
+     */
+    private void Measure(Microbenchmark benchmark) {
+        System.out.println("# Running " + benchmark.name);
+        results.add(benchmark.Run(WARMUP_ITERATIONS, MEASUREMENT_ITERATIONS));
+    }
+
+    /**
+     * GetPID fast path, empty kernel round trip and SwitchProcess.
+     * @return void
+     */
+    private void BenchmarkSyscalls() {
+        Measure(new Microbenchmark("syscall.getPid", 100_000) {
+            @Override
+            protected void Operation(int i) {
+                OS.GetPID();
+            }
+        });
+
+        SyscallRing empty = new SyscallRing(1);
+        Measure(new Microbenchmark("syscall.roundTrip", 2_000) {
+            @Override
+            protected void Operation(int i) {
+                OS.SubmitRing(empty);
+            }
+        });
+
+        Measure(new Microbenchmark("syscall.switchProcess", 20) {
+            @Override
+            protected void Operation(int i) {
+                OS.SwitchProcess();
+            }
+        });
+    }
+
+    /**
+     * Hardware.Read() with a TLB hit and with a guaranteed TLB miss, then a
+     * 4 KB copy out of virtual memory byte by byte and as one block.
+     * The miss cycles over ways + 1 pages that all fall into the same TLB set,
+     * so with LRU replacement the next page is never cached.
+     * @return void
+     */
+    private void BenchmarkTlb() {
+        Tlb tlb = Hardware.tlbs[0];
+        int conflicting = tlb.Ways() + 1;
+        int tlbPages = tlb.Ways() * tlb.Sets() + 1;
+        int base = OS.AllocateMemory(tlbPages * Hardware.sizeOfPage);
+        for (int p = 0; p < tlbPages; p++) {
+            Hardware.Write(base + p * Hardware.sizeOfPage, (byte) p);
+        }
+
+        Measure(new Microbenchmark("memory.tlbHit", 100_000) {
+            @Override
+            protected void SetupIteration() {
+                Hardware.Read(base);
+            }
+
+            @Override
+            protected void Operation(int i) {
+                Hardware.Read(base + (i & (Hardware.sizeOfPage - 1)));
+            }
+        });
+
+        Measure(new Microbenchmark("memory.tlbMiss", 2_000) {
+            @Override
+            protected void Operation(int i) {
+                Hardware.Read(base + (i % conflicting) * tlb.Sets() * Hardware.sizeOfPage);
+            }
+        });
+
+        // Unaligned on purpose: the copy touches 5 pages
+        int copyStart = base + Hardware.sizeOfPage / 2;
+        byte[] copy = new byte[4 * Hardware.sizeOfPage];
+        Measure(new Microbenchmark("memory.copy4kBytewise", 200) {
+            @Override
+            protected void Operation(int i) {
+                for (int b = 0; b < copy.length; b++) {
+                    copy[b] = Hardware.Read(copyStart + b);
+                }
+            }
+        });
+
+        Measure(new Microbenchmark("memory.copy4kBlock", 20_000) {
+            @Override
+            protected void Operation(int i) {
+                Hardware.ReadBlock(copyStart, copy, 0, copy.length);
+            }
+        });
+
+        OS.FreeMemory(base, tlbPages * Hardware.sizeOfPage);
+    }
+
+    /**
+     * First touch of freshly allocated pages while physical frames are free.
+     * @return void
+     */
+    private void BenchmarkFaultFreeFrame() {
+        Measure(new PageFaultBenchmark("memory.faultFreeFrame"));
+    }
+
+    /**
+     * First touch of freshly allocated pages while every physical frame is in use.
+     * Before each iteration the hogs touch all their pages again, which refills
+     * any frames released by the previous iteration.
+     * @return void
+     */
+    private void BenchmarkFaultSwap() {
+        int me = OS.GetPID();
+        int[] hogs = new int[hogCount];
+        for (int h = 0; h < hogCount; h++) {
+            hogs[h] = OS.CreateProcess(new Hog(me), OS.PriorityType.interactive);
+        }
+        WaitForReplies(hogCount);
+
+        KernelMessage touch = new KernelMessage(0, 0, MSG_TOUCH, new byte[0]);
+        Measure(new PageFaultBenchmark("memory.faultSwap") {
+            @Override
+            protected void SetupIteration() {
+                for (int pid : hogs) {
+                    touch.targetPid = pid;
+                    OS.SendMessage(touch);
+                }
+                WaitForReplies(hogCount);
+                super.SetupIteration();
+            }
+        });
+
+        KernelMessage stop = new KernelMessage(0, 0, MSG_STOP, new byte[0]);
+        for (int pid : hogs) {
+            stop.targetPid = pid;
+            OS.SendMessage(stop);
+        }
+    }
+
+    /**
+     * SendMessage / WaitForMessage round trip with an echo process.
+     * @return void
+     */
+    private void BenchmarkMessages() {
+        int echo = OS.CreateProcess(new Echo(), OS.PriorityType.interactive);
+        byte[] payload = new byte[64];
+        random.nextBytes(payload);
+        KernelMessage ping = new KernelMessage(0, echo, MSG_PING, payload);
+
+        Measure(new Microbenchmark("message.pingPong", 20) {
+            @Override
+            protected void Operation(int i) {
+                OS.SendMessage(ping);
+                OS.WaitForMessage();
+            }
+        });
+
+        OS.SendMessage(new KernelMessage(0, echo, MSG_STOP, new byte[0]));
+    }
+
+    /**
+     * 1 KB writes and reads at seeded random offsets of a 64 KB file.
+     * @return void
+     */
+    private void BenchmarkFile() {
+        int blocks = 64;
+        byte[] data = new byte[Hardware.sizeOfPage];
+        random.nextBytes(data);
+        int[] offsets = new int[1_000];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = random.nextInt(blocks) * data.length;
+        }
+
+        int fd = OS.Open("file " + FILE_NAME);
+        if (fd == -1) {
+            System.out.println("Could not open " + FILE_NAME + ", skipping file benchmarks");
+            return;
+        }
+        for (int b = 0; b < blocks; b++) {
+            OS.Write(fd, data);
+        }
+
+        Measure(new Microbenchmark("file.write", offsets.length) {
+            @Override
+            protected void Operation(int i) {
+                OS.Seek(fd, offsets[i]);
+                OS.Write(fd, data);
+            }
+        });
+
+        Measure(new Microbenchmark("file.read", offsets.length) {
+            @Override
+            protected void Operation(int i) {
+                OS.Seek(fd, offsets[i]);
+                OS.Read(fd, data.length);
+            }
+        });
+
+        OS.Close(fd);
+        try {
+            Files.deleteIfExists(Path.of(FILE_NAME));
+        } catch (IOException e) {
+            System.out.println("Could not delete " + FILE_NAME);
+        }
+    }
+
+    /**
+     * Allocates PAGES pages per iteration and times the first write to each,
+     * so every operation is a TLB miss that also has to find a physical frame.
+     */
+    private class PageFaultBenchmark extends Microbenchmark {
+        private int base;
+
+        PageFaultBenchmark(String name) {
+            super(name, PAGES);
+        }
+
+        @Override
+        protected void SetupIteration() {
+            base = OS.AllocateMemory(PAGES * Hardware.sizeOfPage);
+        }
+
+        @Override
+        protected void Operation(int i) {
+            Hardware.Write(base + i * Hardware.sizeOfPage, (byte) i);
+        }
+
+        @Override
+        protected void TearDownIteration() {
+            // FreeMemory drops the pages' translations, so the next iteration faults again
+            OS.FreeMemory(base, PAGES * Hardware.sizeOfPage);
+        }
+    }
+
+    /**
+     * Waits until the given number of MSG_READY replies have arrived.
+     * @return void
+     */
+    private void WaitForReplies(int count) {
+        int received = 0;
+        while (received < count) {
+            if (OS.WaitForMessage().messageType == MSG_READY) {
+                received++;
+            }
+        }
+    }
+}
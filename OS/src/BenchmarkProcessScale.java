@@ -0,0 +1,97 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * BenchmarkProcessScale process.
+ * ------------------------------
+ * Measures how cheaply the configured ExecutionBackend can carry a large
+ * number of processes.
+ *
+ * It creates COUNT child processes (100,000 by default) through
+ * OS.CreateProcess(). Each child only sleeps for a long time and exits, so
+ * right after creation every child is parked: either at its start gate or,
+ * once scheduled, in the sleeping queue.
+ *
+ * Reported numbers:
+ *   - creation rate (processes per second, including the kernel entry)
+ *   - Java heap growth per process (after a GC)
+ *   - resident set size of the JVM (VmRSS, Linux only), which includes
+ *     thread stacks that the heap figure does not show
+ *
+ * Run it with each backend to compare, e.g. "--backend small-stack" or
+ * "--backend virtual".
+ */
+public class BenchmarkProcessScale extends UserlandProcess {
+    // A child that parks for a long time and then exits
+    public static class Sleeper extends UserlandProcess {
+        @Override
+        public void main() {
+            OS.Sleep(600_000);
+            OS.Exit();
+        }
+    }
+
+    private final int count;      // number of child processes to create
+
+    public BenchmarkProcessScale() {
+        this(100_000);
+    }
+
+    public BenchmarkProcessScale(int count) {
+        this.count = count;
+    }
+
+    @Override
+    public void main() {
+        System.out.println("\n===== Benchmark: Process Scale (" + Process.executionBackend.Name() + " backend) =====");
+
+        long heapBefore = UsedHeap();
+        long rssBefore = ResidentSetKb();
+        long begin = System.nanoTime();
+
+        for (int i = 0; i < count; i++) {
+            OS.CreateProcess(new Sleeper(), OS.PriorityType.background);
+        }
+
+        long elapsed = System.nanoTime() - begin;
+        long heapAfter = UsedHeap();
+        long rssAfter = ResidentSetKb();
+
+        System.out.printf("Created %d processes in %.2f s (%.0f processes/s)%n",
+                count, elapsed / 1e9, count / (elapsed / 1e9));
+        System.out.printf("Heap growth: %.1f MB (%.0f bytes/process)%n",
+                (heapAfter - heapBefore) / 1048576.0, (heapAfter - heapBefore) / (double) count);
+        if (rssBefore >= 0 && rssAfter >= 0) {
+            System.out.printf("RSS growth:  %.1f MB (%.0f bytes/process)%n",
+                    (rssAfter - rssBefore) / 1024.0, (rssAfter - rssBefore) * 1024.0 / count);
+        }
+        System.out.println("===== End of BenchmarkProcessScale =====");
+        OS.Exit();
+    }
+
+    /**
+     * @return bytes of Java heap in use after a garbage collection
+     */
+    private long UsedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    /**
+     * @return the JVM resident set size in KB, or -1 if /proc is not available
+     */
+    private long ResidentSetKb() {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", ""));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            return -1;
+        }
+        return -1;
+    }
+}
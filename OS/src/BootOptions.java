@@ -0,0 +1,208 @@
+/**
+ * BootOptions class.
+ * ------------------
+ * Boot-time configuration of the simulated machine, handed to OS.Startup().
+ * Options can be set directly on the fields or parsed from the command line,
+ * e.g. "java Main --cpus 4".
+ */
+public class BootOptions {
+    // Number of simulated CPUs; each gets its own running process, run queues and TLB
+    public int cpuCount = 1;
+
+    // Kind of Java thread each process runs on ("platform", "small-stack" or "virtual")
+    public String executionBackend = "platform";
+
+    // Arm the quantum only while another process waits for the CPU
+    public boolean tickless = false;
+
+    // Time slice in milliseconds per OS.PriorityType (indexed by ordinal)
+    public int[] quantumMillis = {250, 250, 250};
+
+    // Consecutive timeouts before a process is demoted, per OS.PriorityType (0 = never)
+    public int[] demotionThreshold = {5, 5, 5};
+
+    // Voluntary blocks after which a demoted process moves one class back up (0 = never, the default)
+    public int promoteAfter = 0;
+
+    // Runnable processes waiting longer than this (ms) are boosted one class for a run (0 = no aging, the default)
+    public int boostAfterMillis = 0;
+
+    // Shrink the quantum when many realtime/interactive processes are runnable, grow it for batch work
+    public boolean adaptiveQuantum = false;
+
+    // Scheduling policy of every CPU: "lottery", "stride" or "fair"
+    public String schedulingPolicy = "lottery";
+
+    // Share of each CPU (percent) that admission control lets deadline processes reserve
+    public int deadlineCapacity = 95;
+
+    // Sleep deadlines are rounded up to a multiple of this (ns), so wakeups close together coalesce
+    public long timerSlackNanos = 50_000;
+
+    // Physical memory in bytes (a multiple of pageSize), allocated off-heap at boot.
+    // Above the JVM's heap size this needs -XX:MaxDirectMemorySize to match.
+    public long memorySize = 1024 * 1024;
+
+    // Bytes per page (a power of two, 64 B to 1 MB)
+    public int pageSize = 1024;
+
+    // Geometry of every CPU's TLB: total entries and entries per set (both powers of two)
+    public int tlbEntries = 64;
+    public int tlbWays = 4;
+
+    // Address-space identifiers per generation (TLB entries survive context switches; at least cpuCount)
+    public int asidCount = 256;
+
+    // Lowest kernel log level printed: "debug", "info", "warn" or "quiet"
+    public String logLevel = "info";
+
+    // Print the per-call-type syscall statistics when the JVM shuts down
+    public boolean dumpSyscallStats = false;
+
+    // Print the TLB hit, miss and eviction counters of every CPU when the JVM shuts down
+    public boolean dumpTlbStats = false;
+
+    /**
+     * Parses command-line boot options.
+     * Supported options:
+     *   --cpus N          number of simulated CPUs (N >= 1)
+     *   --backend NAME    process execution backend: platform, small-stack or virtual
+     *   --tickless        arm the quantum only under contention
+     *   --quantum CLASS=MS            time slice of a priority class, e.g. interactive=50
+     *   --demote-after CLASS=N        timeouts before demotion (0 = never)
+     *   --adaptive-quantum            scale quanta with load
+     *   --promote-after N             voluntary blocks before a demoted process moves back up (0 = never)
+     *   --boost-after MS              boost runnable processes that waited this long (0 = no aging)
+     *   --policy NAME     scheduling policy: lottery, stride or fair
+     *   --deadline-capacity PERCENT   CPU share deadline processes may reserve
+     *   --timer-slack NS  round sleep deadlines up to a multiple of NS nanoseconds (0 = exact)
+     *   --memory SIZE     physical memory in bytes, optionally with a K, M or G suffix (e.g. 4G)
+     *   --page-size N     page size in bytes (power of two, 64 to 1048576)
+     *   --tlb-entries N   TLB entries per CPU (power of two)
+     *   --tlb-ways N      TLB associativity (power of two, N = entries for fully associative)
+     *   --asids N         address-space identifiers before the TLBs are flushed (N >= cpus)
+     *   --log-level NAME  kernel log level: debug, info, warn or quiet
+     *   --syscall-stats   print syscall statistics at shutdown
+     *   --tlb-stats       print TLB statistics at shutdown
+     *
+     * @param args the command-line arguments
+     * @return BootOptions the parsed options (defaults for anything not given)
+     * @throws IllegalArgumentException if an option is unknown or malformed
+     */
+    public static BootOptions Parse(String[] args) {
+        BootOptions options = new BootOptions();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--cpus" -> options.cpuCount = Integer.parseInt(Value(args, ++i));
+                case "--backend" -> options.executionBackend = Value(args, ++i);
+                case "--tickless" -> options.tickless = true;
+                case "--quantum" -> ClassValue(Value(args, ++i), options.quantumMillis);
+                case "--demote-after" -> ClassValue(Value(args, ++i), options.demotionThreshold);
+                case "--adaptive-quantum" -> options.adaptiveQuantum = true;
+                case "--promote-after" -> options.promoteAfter = Integer.parseInt(Value(args, ++i));
+                case "--boost-after" -> options.boostAfterMillis = Integer.parseInt(Value(args, ++i));
+                case "--policy" -> options.schedulingPolicy = Value(args, ++i);
+                case "--deadline-capacity" -> options.deadlineCapacity = Integer.parseInt(Value(args, ++i));
+                case "--timer-slack" -> options.timerSlackNanos = Long.parseLong(Value(args, ++i));
+                case "--memory" -> options.memorySize = Size(Value(args, ++i));
+                case "--page-size" -> options.pageSize = Integer.parseInt(Value(args, ++i));
+                case "--tlb-entries" -> options.tlbEntries = Integer.parseInt(Value(args, ++i));
+                case "--tlb-ways" -> options.tlbWays = Integer.parseInt(Value(args, ++i));
+                case "--asids" -> options.asidCount = Integer.parseInt(Value(args, ++i));
+                case "--log-level" -> options.logLevel = Value(args, ++i);
+                case "--syscall-stats" -> options.dumpSyscallStats = true;
+                case "--tlb-stats" -> options.dumpTlbStats = true;
+                default -> throw new IllegalArgumentException("Unknown boot option: " + args[i]);
+            }
+        }
+        options.Validate();
+        return options;
+    }
+
+    /**
+     * Checks that every option is within its allowed range.
+     * @throws IllegalArgumentException if an option is out of range
+     */
+    public void Validate() {
+        if (cpuCount < 1) {
+            throw new IllegalArgumentException("cpuCount must be at least 1");
+        }
+        KernelLog.ParseLevel(logLevel);
+        SchedulingPolicy.ForName(schedulingPolicy);
+        if (timerSlackNanos < 0) {
+            throw new IllegalArgumentException("timerSlackNanos must not be negative");
+        }
+        if (promoteAfter < 0 || boostAfterMillis < 0) {
+            throw new IllegalArgumentException("promoteAfter and boostAfterMillis must not be negative");
+        }
+        // Virtual addresses are ints, so a process's pages (PCB mapping table) must fit below 2 GB
+        if (Integer.bitCount(pageSize) != 1 || pageSize < 64 || pageSize > 1 << 20) {
+            throw new IllegalArgumentException("pageSize must be a power of two between 64 and 1048576");
+        }
+        if (memorySize < pageSize || memorySize % pageSize != 0 || memorySize / pageSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("memorySize must be a positive multiple of pageSize");
+        }
+        new Tlb(tlbEntries, tlbWays);   // throws if the geometry is invalid
+        if (asidCount < cpuCount || asidCount > 65536) {
+            throw new IllegalArgumentException("asidCount must be between cpuCount and 65536");
+        }
+        if (deadlineCapacity < 0 || deadlineCapacity > 100) {
+            throw new IllegalArgumentException("deadlineCapacity must be between 0 and 100");
+        }
+        for (OS.PriorityType p : OS.priorityTypes) {
+            if (quantumMillis[p.ordinal()] < 1 || quantumMillis[p.ordinal()] > 60_000) {
+                throw new IllegalArgumentException("Quantum of " + p + " must be between 1 and 60000 ms");
+            }
+            if (demotionThreshold[p.ordinal()] < 0) {
+                throw new IllegalArgumentException("Demotion threshold of " + p + " must not be negative");
+            }
+        }
+    }
+
+    /**
+     * Parses a "class=value" pair (e.g. "interactive=50") into the per-class array.
+     * @throws IllegalArgumentException if the class or the number is malformed
+     */
+    private static void ClassValue(String pair, int[] perClass) {
+        int eq = pair.indexOf('=');
+        if (eq < 0) {
+            throw new IllegalArgumentException("Expected CLASS=VALUE but got " + pair);
+        }
+        OS.PriorityType p;
+        try {
+            p = OS.PriorityType.valueOf(pair.substring(0, eq));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown priority class in " + pair);
+        }
+        perClass[p.ordinal()] = Integer.parseInt(pair.substring(eq + 1));
+    }
+
+    /**
+     * Parses a byte count with an optional binary suffix: "65536", "64K", "16M", "4G".
+     * @throws IllegalArgumentException if the size is malformed
+     */
+    private static long Size(String text) {
+        int shift = switch (text.isEmpty() ? ' ' : Character.toUpperCase(text.charAt(text.length() - 1))) {
+            case 'K' -> 10;
+            case 'M' -> 20;
+            case 'G' -> 30;
+            default -> 0;
+        };
+        long value = Long.parseLong(shift == 0 ? text : text.substring(0, text.length() - 1));
+        if (value < 0 || value > Long.MAX_VALUE >> shift) {
+            throw new IllegalArgumentException("Bad memory size: " + text);
+        }
+        return value << shift;
+    }
+
+    /**
+     * Returns the value that follows an option on the command line.
+     * @throws IllegalArgumentException if the value is missing
+     */
+    private static String Value(String[] args, int index) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for boot option " + args[index - 1]);
+        }
+        return args[index];
+    }
+}
@@ -0,0 +1,83 @@
+import java.util.Comparator;
+import java.util.TimerTask;
+import java.util.TreeSet;
+
+/**
+ * Cpu class.
+ * ----------
+ * State of one simulated CPU in a symmetric multiprocessing setup:
+ * - the process currently executing on it
+ * - its own runnable processes, held by its SchedulingPolicy
+ * - its runnable deadline (EDF) processes, which always run before the policy's
+ *
+ * The TLB of each CPU lives in Hardware.tlbs[id]. A CPU with nothing to run
+ * has currentRunning == null and stays idle until the kernel hands it work.
+ */
+public class Cpu {
+    // Index of this CPU (0 .. cpuCount - 1), also the index of its TLB in Hardware
+    public final int id;
+
+    // Reference to the process currently executing on this CPU (null = idle)
+    public PCB currentRunning;
+
+    // True from the moment the kernel starts currentRunning until it next enters
+    // the kernel: the process may be touching memory and this CPU's TLB right now,
+    // so its frames are not swapped out and TLB invalidations are deferred
+    public boolean userMode = false;
+
+    // One-shot timer ending the running process's time slice (null = not armed)
+    volatile TimerTask quantumTimer;
+
+    // Runnable processes waiting for this CPU, and the rule that picks the next one
+    final SchedulingPolicy policy;
+
+    // Runnable deadline processes, earliest absolute deadline first
+    final TreeSet<PCB> deadlineQueue = new TreeSet<>(
+            Comparator.<PCB>comparingLong(p -> p.dlAbsoluteDeadline).thenComparingInt(p -> p.pid));
+
+    // Bandwidth admitted to deadline processes on this CPU, in millionths of the CPU
+    long deadlineBandwidth = 0;
+
+    // Time this CPU spent with nothing to run: completed idle periods, and the
+    // System.nanoTime() the current one started (0 = not idle)
+    long idleNanos = 0;
+    long idleSinceNanos = 0;
+
+    /**
+     * Constructor.
+     * @param id index of this CPU
+     * @param policy the scheduling policy instance owned by this CPU
+     * @return void
+     */
+    public Cpu(int id, SchedulingPolicy policy) {
+        this.id = id;
+        this.policy = policy;
+        this.idleSinceNanos = System.nanoTime();    // nothing runs on a CPU until the kernel hands it work
+    }
+
+    /**
+     * Returns the total time this CPU has been idle, including the current idle period.
+     * @param now the current System.nanoTime()
+     * @return long idle time in nanoseconds
+     */
+    public long IdleNanos(long now) {
+        return idleNanos + (idleSinceNanos == 0 ? 0 : now - idleSinceNanos);
+    }
+
+    /**
+     * Returns how many processes are waiting in this CPU's run queues.
+     * @return int number of queued processes
+     */
+    public int QueuedCount() {
+        return policy.Size() + deadlineQueue.size();
+    }
+
+    /**
+     * Returns the load of this CPU: queued processes plus the running one.
+     * Used to place new processes and to pick a victim for work stealing.
+     * @return int the number of processes assigned to this CPU
+     */
+    public int Load() {
+        return QueuedCount() + (currentRunning == null ? 0 : 1);
+    }
+}
@@ -0,0 +1,41 @@
+/**
+ * ExecutionBackend Interface
+ * --------------------------
+ * Decides what kind of Java thread carries a simulated process.
+ * Every Process hands its run() body to the configured backend when it is
+ * constructed; the semaphore gate in Process works the same on every backend.
+ *
+ * Available backends (selected with BootOptions / "--backend NAME"):
+ *   - platform    : one platform thread per process (default)
+ *   - small-stack : one platform thread per process with a reduced stack
+ *   - virtual     : one Java virtual thread per process
+ */
+public interface ExecutionBackend {
+    /**
+     * Starts a new thread of execution running the given body.
+     *
+     * @param body the process body (Process.run())
+     */
+    void Start(Runnable body);
+
+    /**
+     * @return the name this backend is selected by
+     */
+    String Name();
+
+    /**
+     * Creates the backend registered under the given name.
+     *
+     * @param name one of "platform", "small-stack" or "virtual"
+     * @return a new backend instance
+     * @throws IllegalArgumentException if the name is unknown
+     */
+    static ExecutionBackend ForName(String name) {
+        return switch (name) {
+            case "platform" -> new PlatformThreadBackend(0);
+            case "small-stack" -> new PlatformThreadBackend(PlatformThreadBackend.smallStackSize);
+            case "virtual" -> new VirtualThreadBackend();
+            default -> throw new IllegalArgumentException("Unknown execution backend: " + name);
+        };
+    }
+}
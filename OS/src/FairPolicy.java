@@ -0,0 +1,171 @@
+import java.util.Comparator;
+import java.util.TreeSet;
+
+/**
+ * FairPolicy class.
+ * -----------------
+ * Completely fair scheduling on virtual runtime, in the style of Linux CFS.
+ *
+ * Every process has a weight: the weight of its nice value (see
+ * StridePolicy.Weight) times the weight of its priority class (realtime 6,
+ * interactive 3, background 1). While it runs, its virtual runtime grows by
+ * the CPU time it used, scaled by 1024 / weight, so heavier processes age
+ * more slowly. The process with the smallest virtual runtime runs next; the
+ * runnable processes are kept in a red-black tree (TreeSet) ordered by
+ * (vruntime, pid), so picking is O(log n).
+ *
+ * Unlike the lottery, no class can be starved: a background process at nice 0
+ * next to one realtime process still gets 1/7 of the CPU, just less than it.
+ *
+ * - A process that starts or migrates here begins at the CPU's minimum
+ *   virtual runtime (plus the lag it had on its old CPU).
+ * - A process woken up from a sleep or by a message may be placed up to
+ *   wakeupCreditNanos before the minimum so it runs soon, but it cannot bank
+ *   more credit than that however long it slept.
+ */
+public class FairPolicy implements SchedulingPolicy {
+    // Weight multiplier per priority class, indexed by OS.PriorityType ordinal
+    private static final int[] classWeights = {6, 3, 1};
+
+    // Weight of nice 0: a background nice 0 process's vruntime advances at wall-clock speed
+    private static final int baseWeight = 1024;
+
+    // Largest head start a woken process gets over the processes already queued
+    private static final long wakeupCreditNanos = 10_000_000;
+
+    private static final Comparator<PCB> byVruntime =
+            Comparator.<PCB>comparingLong(p -> p.vruntime).thenComparingInt(p -> p.pid);
+
+    // Runnable processes, smallest virtual runtime first
+    private final TreeSet<PCB> runnable = new TreeSet<>(byVruntime);
+
+    // Queued processes per priority class
+    private final int[] classCount = new int[OS.priorityTypes.length];
+
+    // Monotonic lower bound of the virtual runtimes on this CPU
+    private long minVruntime = 0;
+
+    /**
+     * Returns the scheduling weight of a process.
+     * @param pcb the process
+     * @return long its weight (1024 for a background process at nice 0)
+     */
+    private static long WeightOf(PCB pcb) {
+        return (long) classWeights[pcb.getPriority().ordinal()] * StridePolicy.Weight(pcb.nice);
+    }
+
+    @Override
+    public void Enqueue(PCB pcb) {
+        if (pcb.fairOwner != this) {
+            // new or migrated: keep only the lag relative to the old CPU's minimum
+            pcb.vruntime = minVruntime + pcb.vruntime;
+            pcb.fairOwner = this;
+        }
+        Insert(pcb);
+    }
+
+    @Override
+    public void Wakeup(PCB pcb) {
+        if (pcb.fairOwner == this) {
+            pcb.vruntime = Math.max(pcb.vruntime, minVruntime - wakeupCreditNanos);
+        }
+        Enqueue(pcb);
+    }
+
+    @Override
+    public void Charge(PCB pcb, long ranNanos) {
+        if (pcb.fairOwner == this && ranNanos > 0) {
+            pcb.vruntime += ranNanos * baseWeight / WeightOf(pcb);
+        }
+    }
+
+    /**
+     * Adds a process to the tree.
+     * @param pcb the process
+     * @return void
+     * @throws IllegalStateException if it is already queued
+     */
+    private void Insert(PCB pcb) {
+        if (pcb.queuedOn != null) {
+            throw new IllegalStateException("Process " + pcb.pid + " is already queued");
+        }
+        runnable.add(pcb);
+        classCount[pcb.getPriority().ordinal()]++;
+        pcb.queuedOn = this;
+    }
+
+    /**
+     * Takes a process out of the tree.
+     * @param pcb the process (must be queued here)
+     * @return void
+     */
+    private void Unlink(PCB pcb) {
+        runnable.remove(pcb);
+        classCount[pcb.getPriority().ordinal()]--;
+        pcb.queuedOn = null;
+    }
+
+    @Override
+    public PCB PickNext() {
+        PCB next = runnable.pollFirst();
+        if (next == null) {
+            return null;
+        }
+        classCount[next.getPriority().ordinal()]--;
+        next.queuedOn = null;
+        minVruntime = Math.max(minVruntime, next.vruntime);
+        return next;
+    }
+
+    /**
+     * Gives away the process with the largest virtual runtime (the one that
+     * would wait longest here). Its vruntime becomes its lag behind this CPU.
+     */
+    @Override
+    public PCB StealOne() {
+        PCB stolen = runnable.isEmpty() ? null : runnable.last();
+        if (stolen != null) {
+            Unlink(stolen);
+            stolen.vruntime = Math.max(0, stolen.vruntime - minVruntime);
+            stolen.fairOwner = null;
+        }
+        return stolen;
+    }
+
+    @Override
+    public boolean Remove(PCB pcb) {
+        if (pcb.queuedOn != this) {
+            return false;
+        }
+        Unlink(pcb);
+        return true;
+    }
+
+    @Override
+    public int Size() {
+        return runnable.size();
+    }
+
+    @Override
+    public int Size(OS.PriorityType priority) {
+        return classCount[priority.ordinal()];
+    }
+
+    @Override
+    public void AppendQueues(StringBuilder sb) {
+        for (OS.PriorityType p : OS.priorityTypes) {
+            sb.append(SchedulingPolicy.QueueLabel(p));
+            for (PCB pcb : runnable) {
+                if (pcb.getPriority() == p) {
+                    sb.append(pcb.pid).append(' ');
+                }
+            }
+            sb.append('\n');
+        }
+    }
+
+    @Override
+    public String Name() {
+        return "fair";
+    }
+}
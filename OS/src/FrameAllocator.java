@@ -0,0 +1,145 @@
+import java.util.Arrays;
+
+/**
+ * FrameAllocator class.
+ * ---------------------
+ * Keeps track of which physical page frames are free.
+ *
+ * The frames are one bit each in a long[] bitmap (1 = free), with a second,
+ * summary bitmap holding one bit per bitmap word that still has a free frame.
+ * Allocation takes the lowest free frame: it finds the first non-zero summary
+ * word at or after a hint (below which every word is known to be full), and
+ * uses Long.numberOfTrailingZeros on it and then on the bitmap word. So:
+ *   - FreeCount()       O(1), a counter
+ *   - Allocate()        O(1) amortized, a few word operations
+ *   - Free(frame)       O(1)
+ *   - batch versions of both, for callers that handle many frames at once
+ * One summary word covers 4096 frames, so a million frames need 256 summary
+ * words, and a page fault never scans the frames themselves.
+ */
+public class FrameAllocator {
+    // Free frames, one bit per frame (bit i of word w is frame 64 * w + i)
+    private final long[] freeBits;
+
+    // Bit w set = freeBits[w] is not zero
+    private final long[] summary;
+
+    // Every summary word below this one is zero (all its frames are in use)
+    private int searchHint = 0;
+
+    private final int capacity;
+    private int freeCount;
+
+    /**
+     * Constructor. All frames start free.
+     * @param frames number of physical frames
+     * @return void
+     * @throws IllegalArgumentException if frames is not positive
+     */
+    public FrameAllocator(int frames) {
+        if (frames < 1) {
+            throw new IllegalArgumentException("A frame allocator needs at least one frame");
+        }
+        capacity = frames;
+        freeCount = frames;
+        freeBits = new long[(frames + 63) >>> 6];
+        summary = new long[(freeBits.length + 63) >>> 6];
+        Arrays.fill(freeBits, -1L);
+        if ((frames & 63) != 0) {
+            freeBits[freeBits.length - 1] = (1L << (frames & 63)) - 1;   // no bits past the last frame
+        }
+        Arrays.fill(summary, -1L);
+        if ((freeBits.length & 63) != 0) {
+            summary[summary.length - 1] = (1L << (freeBits.length & 63)) - 1;
+        }
+    }
+
+    /**
+     * Allocates the lowest free frame.
+     * @return int the frame number, or -1 if every frame is in use
+     */
+    public int Allocate() {
+        if (freeCount == 0) {
+            return -1;
+        }
+        while (summary[searchHint] == 0) {
+            searchHint++;
+        }
+        int word = (searchHint << 6) + Long.numberOfTrailingZeros(summary[searchHint]);
+        long bits = freeBits[word];
+        int frame = (word << 6) + Long.numberOfTrailingZeros(bits);
+        bits &= bits - 1;                       // clear the lowest set bit
+        freeBits[word] = bits;
+        if (bits == 0) {
+            summary[word >>> 6] &= ~(1L << word);
+        }
+        freeCount--;
+        return frame;
+    }
+
+    /**
+     * Allocates up to `count` frames, lowest first.
+     * @param out receives the frame numbers (at least count long)
+     * @param count how many frames are wanted
+     * @return int how many frames were allocated (less than count only if memory ran out)
+     */
+    public int Allocate(int[] out, int count) {
+        int n = Math.min(count, freeCount);
+        for (int i = 0; i < n; i++) {
+            out[i] = Allocate();
+        }
+        return n;
+    }
+
+    /**
+     * Returns a frame to the free pool.
+     * @param frame the frame number
+     * @return void
+     * @throws IllegalArgumentException if the frame number is out of range
+     * @throws IllegalStateException if the frame is already free
+     */
+    public void Free(int frame) {
+        if (frame < 0 || frame >= capacity) {
+            throw new IllegalArgumentException("No such physical frame: " + frame);
+        }
+        int word = frame >>> 6;
+        long bit = 1L << frame;
+        if ((freeBits[word] & bit) != 0) {
+            throw new IllegalStateException("Physical frame " + frame + " is already free");
+        }
+        freeBits[word] |= bit;
+        summary[word >>> 6] |= 1L << word;
+        searchHint = Math.min(searchHint, word >>> 6);
+        freeCount++;
+    }
+
+    /**
+     * Returns several frames to the free pool.
+     * @param frames the frame numbers
+     * @param count how many entries of frames to free
+     * @return void
+     */
+    public void Free(int[] frames, int count) {
+        for (int i = 0; i < count; i++) {
+            Free(frames[i]);
+        }
+    }
+
+    /**
+     * @param frame the frame number
+     * @return true if the frame is currently allocated
+     */
+    public boolean IsAllocated(int frame) {
+        return (freeBits[frame >>> 6] & (1L << frame)) == 0;
+    }
+
+    /** @return the number of free frames */
+    public int FreeCount() {
+        return freeCount;
+    }
+
+    /** @return the total number of frames */
+    public int Capacity() {
+        return capacity;
+    }
+}
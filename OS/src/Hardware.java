@@ -1,22 +1,45 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
 /**
  * The Hardware class simulates a simplified hardware layer that provides
  * memory access and TLB (Translation Lookaside Buffer) translation for
  * virtual-to-physical address mapping.
  *
- * Each page is 1 KB (1024 bytes). When a TLB miss occurs, the system
- * invokes OS.GetMapping() to load the virtual-to-physical mapping.
+ * Physical memory lives off the Java heap, in direct ByteBuffers of at most
+ * 1 GB each ("chunks"), so it can be several gigabytes without growing the
+ * heap or the GC's work. Its size and the page size (a power of two, so a page
+ * never straddles two chunks) are boot options; the default machine has 1 MB
+ * of 1 KB pages. When a TLB miss occurs, the system invokes OS.GetMapping()
+ * to load the virtual-to-physical mapping.
+ *
+ * Every simulated CPU has its own TLB (a set-associative Tlb with LRU
+ * replacement, sized by the boot options, whose entries are tagged with the
+ * owning process's ASID); Read() and Write() use the TLB of the CPU the
+ * calling process is running on.
+ *
+ * Besides single bytes, memory can be moved in bulk: ReadBlock/WriteBlock
+ * (byte[] or ByteBuffer), Fill, and little-endian int/long accessors (see
+ * also VirtualIntArray). These translate once per page touched and copy the
+ * rest of the page with one bulk buffer operation, instead of one TLB lookup per byte.
  */
 public class Hardware {
-    // Translation Lookaside Buffer (TLB) storing up to two entries.
-    // Each entry consists of:
-    // Index 0: Virtual Page Number (VPN)
-    // Index 1: Physical Page Number (PPN)
-    public static int[][] tlb = new int [2][2];
+    // One Translation Lookaside Buffer per CPU (replaced by ConfigureCpus() at boot)
+    public static Tlb[] tlbs = { new Tlb(64, 4) };
+
+    // Physical memory chunks: physical address a is byte (a & chunkMask) of chunks[a >>> chunkShift]
+    private static final int chunkShift = 30;
+    private static final long chunkMask = (1L << chunkShift) - 1;
 
-    // Simulated physical memory of 1 MB (1,048,576 bytes).
-    public static byte[] memory = new byte[1048576];
+    // Simulated physical memory (replaced by ConfigureMemory() at boot).
+    // Only absolute get/put are used, so the buffers' positions are never shared state.
+    private static ByteBuffer[] chunks = AllocateChunks(1048576);
+    public static long memorySize = 1048576;
 
-    public static final int sizeOfPage = 1024;
+    // Page size in bytes (a power of two) and its log2
+    public static int sizeOfPage = 1024;
+    private static int pageShift = 10;
 
     /**
      * Reads a single byte from the given virtual address.
@@ -27,98 +50,375 @@ public class Hardware {
      * @return the byte value stored at the corresponding physical address
      */
     public static byte Read(int address){
-        int virtualPageNumber = (address / 1024);
+        long physical = Translate(address);
+        return Chunk(physical).get(Offset(physical));
+    }
+    /**
+     * Writes a single byte to the given virtual address.
+     * Ensures the address is mapped in the TLB before writing to memory.
+     *
+     * @param address the virtual address to write to
+     * @param value   the byte value to write
+     */
+    public static void Write(int address, byte value){
+        long physical = Translate(address);
+        Chunk(physical).put(Offset(physical), value);
+    }
 
-        // Check if the virtual page is present in the TLB
-        int virtualPageIndexInTLB = virtualPageInTLB(virtualPageNumber);
+    /**
+     * Translates a virtual address into a physical address through the
+     * caller's TLB, asking the OS for the mapping on a TLB miss.
+     *
+     * @param address the virtual address
+     * @return the corresponding physical address
+     */
+    private static long Translate(int address){
+        int virtualPageNumber = address >>> pageShift;
+        int physicalPageNumber = CurrentTLB().Lookup(virtualPageNumber);
 
-        if (virtualPageIndexInTLB == -1){
+        while (physicalPageNumber == -1){
             // TLB miss — request OS to update TLB with mapping
+            // (again if the entry was flushed before we got to use it)
             OS.GetMapping(virtualPageNumber);
-            virtualPageIndexInTLB = virtualPageInTLB(virtualPageNumber);
+            physicalPageNumber = CurrentTLB().Probe(virtualPageNumber);
+        }
+
+        int offset = address & (sizeOfPage - 1);
+        return ((long) physicalPageNumber << pageShift) + offset;
+    }
+
+    /**
+     * @param physical a physical address
+     * @return the chunk of memory holding it
+     */
+    private static ByteBuffer Chunk(long physical){
+        return chunks[(int) (physical >>> chunkShift)];
+    }
+
+    /**
+     * @param physical a physical address
+     * @return its index within its chunk
+     */
+    private static int Offset(long physical){
+        return (int) (physical & chunkMask);
+    }
+
+    /**
+     * Returns how many bytes starting at a virtual address lie in the same page.
+     *
+     * @param address the virtual address
+     * @param length the number of bytes wanted
+     * @return min(length, bytes left in the page)
+     */
+    private static int SpanInPage(int address, int length){
+        return Math.min(length, sizeOfPage - (address & (sizeOfPage - 1)));
+    }
 
+    /**
+     * Copies bytes from virtual memory into an array.
+     *
+     * @param address the virtual address to read from
+     * @param dst     the destination array
+     * @param offset  the first index of dst to fill
+     * @param length  the number of bytes to copy
+     */
+    public static void ReadBlock(int address, byte[] dst, int offset, int length){
+        while (length > 0) {
+            int n = SpanInPage(address, length);
+            long physical = Translate(address);
+            Chunk(physical).get(Offset(physical), dst, offset, n);
+            address += n;
+            offset += n;
+            length -= n;
         }
+    }
 
-        // Translate virtual address to physical address and read memory
-        int physicalAddress = getPhysicalMemoryAddress(virtualPageIndexInTLB, address);
-        return memory[physicalAddress];
+    /**
+     * Reads a block of virtual memory into a new array.
+     *
+     * @param address the virtual address to read from
+     * @param length  the number of bytes to read
+     * @return the bytes read
+     */
+    public static byte[] ReadBlock(int address, int length){
+        byte[] result = new byte[length];
+        ReadBlock(address, result, 0, length);
+        return result;
     }
+
     /**
-     * Writes a single byte to the given virtual address.
-     * Ensures the address is mapped in the TLB before writing to memory.
+     * Copies bytes from virtual memory into a buffer: fills dst from its
+     * position to its limit and advances the position.
+     *
+     * @param address the virtual address to read from
+     * @param dst     the destination buffer
+     */
+    public static void ReadBlock(int address, ByteBuffer dst){
+        int length = dst.remaining();
+        while (length > 0) {
+            int n = SpanInPage(address, length);
+            long physical = Translate(address);
+            dst.put(dst.position(), Chunk(physical), Offset(physical), n);
+            dst.position(dst.position() + n);
+            address += n;
+            length -= n;
+        }
+    }
+
+    /**
+     * Copies bytes from an array into virtual memory.
      *
      * @param address the virtual address to write to
-     * @param value   the byte value to write
+     * @param src     the source array
+     * @param offset  the first index of src to copy
+     * @param length  the number of bytes to copy
      */
-    public static void Write(int address, byte value){
-        int virtualPageNumber = (address / 1024);
+    public static void WriteBlock(int address, byte[] src, int offset, int length){
+        while (length > 0) {
+            int n = SpanInPage(address, length);
+            long physical = Translate(address);
+            Chunk(physical).put(Offset(physical), src, offset, n);
+            address += n;
+            offset += n;
+            length -= n;
+        }
+    }
+
+    /**
+     * Copies the remaining bytes of a buffer into virtual memory and
+     * advances its position to its limit.
+     *
+     * @param address the virtual address to write to
+     * @param src     the source buffer
+     */
+    public static void WriteBlock(int address, ByteBuffer src){
+        int length = src.remaining();
+        while (length > 0) {
+            int n = SpanInPage(address, length);
+            long physical = Translate(address);
+            Chunk(physical).put(Offset(physical), src, src.position(), n);
+            src.position(src.position() + n);
+            address += n;
+            length -= n;
+        }
+    }
 
-        // Check if the virtual page is present in the TLB
-        int virtualPageIndexInTLB = virtualPageInTLB(virtualPageNumber);
+    /**
+     * Sets a range of virtual memory to one value.
+     *
+     * @param address the virtual address to start at
+     * @param length  the number of bytes to set
+     * @param value   the value to store
+     */
+    public static void Fill(int address, int length, byte value){
+        byte[] pattern = new byte[Math.min(Math.max(length, 0), sizeOfPage)];
+        Arrays.fill(pattern, value);
+        while (length > 0) {
+            int n = SpanInPage(address, length);
+            long physical = Translate(address);
+            Chunk(physical).put(Offset(physical), pattern, 0, n);
+            address += n;
+            length -= n;
+        }
+    }
 
-        if (virtualPageIndexInTLB == -1){
-            // TLB miss — fetch mapping from OS
-            OS.GetMapping(virtualPageNumber);
+    /**
+     * Reads a little-endian int from virtual memory (it may cross a page boundary).
+     *
+     * @param address the virtual address of its first byte
+     * @return the value
+     */
+    public static int ReadInt(int address){
+        if (SpanInPage(address, Integer.BYTES) == Integer.BYTES) {
+            long physical = Translate(address);
+            return Chunk(physical).getInt(Offset(physical));
+        }
+        return ByteBuffer.wrap(ReadBlock(address, Integer.BYTES)).order(ByteOrder.LITTLE_ENDIAN).getInt();
+    }
+
+    /**
+     * Writes a little-endian int to virtual memory (it may cross a page boundary).
+     *
+     * @param address the virtual address of its first byte
+     * @param value   the value
+     */
+    public static void WriteInt(int address, int value){
+        if (SpanInPage(address, Integer.BYTES) == Integer.BYTES) {
+            long physical = Translate(address);
+            Chunk(physical).putInt(Offset(physical), value);
+            return;
+        }
+        byte[] bytes = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).putInt(value).array();
+        WriteBlock(address, bytes, 0, bytes.length);
+    }
+
+    /**
+     * Reads a little-endian long from virtual memory (it may cross a page boundary).
+     *
+     * @param address the virtual address of its first byte
+     * @return the value
+     */
+    public static long ReadLong(int address){
+        if (SpanInPage(address, Long.BYTES) == Long.BYTES) {
+            long physical = Translate(address);
+            return Chunk(physical).getLong(Offset(physical));
+        }
+        return ByteBuffer.wrap(ReadBlock(address, Long.BYTES)).order(ByteOrder.LITTLE_ENDIAN).getLong();
+    }
+
+    /**
+     * Writes a little-endian long to virtual memory (it may cross a page boundary).
+     *
+     * @param address the virtual address of its first byte
+     * @param value   the value
+     */
+    public static void WriteLong(int address, long value){
+        if (SpanInPage(address, Long.BYTES) == Long.BYTES) {
+            long physical = Translate(address);
+            Chunk(physical).putLong(Offset(physical), value);
+            return;
+        }
+        byte[] bytes = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).putLong(value).array();
+        WriteBlock(address, bytes, 0, bytes.length);
+    }
+
+    /**
+     * Allocates zeroed physical memory of the given size and page size.
+     * Called once at boot, before any process runs.
+     *
+     * @param bytes memory size (a multiple of pageSize)
+     * @param pageSize page size in bytes (a power of two, at most the chunk size)
+     * @throws IllegalArgumentException if the sizes are not valid
+     */
+    public static void ConfigureMemory(long bytes, int pageSize){
+        if (Integer.bitCount(pageSize) != 1 || pageSize > (1 << chunkShift)) {
+            throw new IllegalArgumentException("Page size must be a power of two, at most " + (1 << chunkShift));
+        }
+        if (bytes < pageSize || bytes % pageSize != 0 || bytes / pageSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Memory size must be a positive multiple of the page size");
+        }
+        chunks = AllocateChunks(bytes);
+        memorySize = bytes;
+        sizeOfPage = pageSize;
+        pageShift = Integer.numberOfTrailingZeros(pageSize);
+    }
+
+    /**
+     * Allocates physical memory as direct little-endian buffers of at most one chunk each.
+     *
+     * @param bytes memory size
+     * @return the chunks, all full-size except possibly the last
+     */
+    private static ByteBuffer[] AllocateChunks(long bytes){
+        ByteBuffer[] result = new ByteBuffer[(int) ((bytes + chunkMask) >>> chunkShift)];
+        for (int i = 0; i < result.length; i++) {
+            int size = (int) Math.min(chunkMask + 1, bytes - ((long) i << chunkShift));
+            result[i] = ByteBuffer.allocateDirect(size).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return result;
+    }
 
-            virtualPageIndexInTLB = virtualPageInTLB(virtualPageNumber);
+    /** @return the number of physical page frames */
+    public static int FrameCount(){
+        return (int) (memorySize >>> pageShift);
+    }
+
+    /**
+     * Sets up one empty TLB per simulated CPU. Called once at boot.
+     *
+     * @param cpuCount number of simulated CPUs
+     * @param tlbEntries entries of each TLB
+     * @param tlbWays associativity of each TLB
+     */
+    public static void ConfigureCpus(int cpuCount, int tlbEntries, int tlbWays){
+        tlbs = new Tlb[cpuCount];
+        for (int i = 0; i < cpuCount; i++) {
+            tlbs[i] = new Tlb(tlbEntries, tlbWays);
         }
-        // TLB hit — translate to physical address and write
-        int physicalAddress = getPhysicalMemoryAddress(virtualPageIndexInTLB, address);
-        memory[physicalAddress] = value;
     }
 
     /**
-     * Searches the TLB for a given virtual page number.
+     * Returns the TLB of the CPU the calling process runs on
+     * (CPU 0 for threads that are not processes).
+     *
+     * @return the caller's TLB
+     */
+    private static Tlb CurrentTLB(){
+        Process p = Process.current();
+        return tlbs[p == null ? 0 : p.cpuId];
+    }
+
+    /**
+     * Removes every TLB entry, on every CPU, that points at the given physical page.
+     * Used when a frame is taken away from its owner (e.g. on page swap or free).
+     * A CPU whose process is running in user mode gets the invalidation when it
+     * next enters the kernel (its process cannot use the frame: a frame is only
+     * taken from processes that are stopped).
      *
-     * @param virtualPageNumber the VPN to look up
-     * @return index of the TLB entry if found; -1 if not present
+     * @param physicalPage the physical frame number being reassigned
+     * @param cpus all CPUs
      */
-    private static int virtualPageInTLB(int virtualPageNumber){
-        for (int i = 0; i < 2; i++) {
-            if (tlb[i][0] == virtualPageNumber) {
-                return i;
+    public static void InvalidatePhysicalPage(int physicalPage, Cpu[] cpus){
+        for (Cpu c : cpus) {
+            if (c.userMode) {
+                tlbs[c.id].DeferInvalidatePhysical(physicalPage);
+            } else {
+                tlbs[c.id].InvalidatePhysical(physicalPage);
             }
         }
-        // Not found — TLB miss
-        return -1;
     }
 
     /**
-     * Translates a virtual address into a physical address
-     * using the specified TLB entry index.
+     * Removes every TLB entry, on every CPU, of the given address space.
+     * Used when a process terminates and its ASID is given back. CPUs running
+     * in user mode get the invalidation when they next enter the kernel.
      *
-     * @param virtualPageIndexInTLB the index of the TLB entry
-     * @param address               the original virtual address
-     * @return the corresponding physical address
+     * @param asid the address-space identifier
+     * @param cpus all CPUs
      */
-    private static int getPhysicalMemoryAddress(int virtualPageIndexInTLB, int address){
-        int offset = address % 1024;
-        int physicalPageNumber = tlb[virtualPageIndexInTLB][1];
-        return 1024 * physicalPageNumber + offset;
+    public static void InvalidateAsid(int asid, Cpu[] cpus){
+        for (Cpu c : cpus) {
+            if (c.userMode) {
+                tlbs[c.id].DeferInvalidateAsid(asid);
+            } else {
+                tlbs[c.id].InvalidateAsid(asid);
+            }
+        }
     }
 
     /**
-     * Prints the current state of the TLB for debugging or visualization.
+     * Prints the current state of the caller's TLB for debugging or visualization.
      */
     public static void PrintTLB() {
+        Tlb tlb = CurrentTLB();
         System.out.println("\n=== TLB State ===");
-        for (int i = 0; i < 2; i++) {
-            System.out.printf("Entry %d: VPN=%d  →  PPN=%d\n",
-                    i, tlb[i][0], tlb[i][1]);
-        }
+        System.out.print(tlb.Dump());
+        System.out.println(tlb.Report());
         System.out.println("=================\n");
     }
 
+    /**
+     * Describes the hit, miss and eviction counters of every CPU's TLB.
+     *
+     * @return one line per CPU
+     */
+    public static String TlbReport() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < tlbs.length; i++) {
+            sb.append("CPU ").append(i).append(": ").append(tlbs[i].Report()).append('\n');
+        }
+        return sb.toString();
+    }
+
     public static byte[] ReadPhysicalMemory(int physicalPage){
-        int start = physicalPage * sizeOfPage;
-        int end = start + sizeOfPage;
+        long start = (long) physicalPage << pageShift;
         byte[] result = new byte[sizeOfPage];
-        System.arraycopy(memory, start, result, 0, result.length);
+        Chunk(start).get(Offset(start), result, 0, result.length);
         return result;
     }
 
     public static void WritePhysicalMemory(int physicalPage, byte[] value){
-        int start = physicalPage * sizeOfPage;
-        System.arraycopy(value, 0, memory, start, value.length);
+        long start = (long) physicalPage << pageShift;
+        Chunk(start).put(Offset(start), value, 0, value.length);
     }
 }
@@ -20,6 +20,31 @@ public class Init extends UserlandProcess{
         OS.CreateProcess(new TestRealtimeSleeper(), OS.PriorityType.realtime);
          */
 
+        /*
+        // Periodic deadline (EDF) processes; the third asks for more CPU
+        // than is left and is rejected by admission control
+        OS.CreateProcess(new TestPeriodicTask("edf-50ms", 15_000, 50_000, 5, 40), OS.PriorityType.realtime);
+        OS.CreateProcess(new TestPeriodicTask("edf-100ms", 30_000, 100_000, 10, 20), OS.PriorityType.realtime);
+        OS.CreateProcess(new TestPeriodicTask("edf-greedy", 80_000, 100_000, 10, 20), OS.PriorityType.realtime);
+         */
+
+        /*
+        // Per-process accounting and load averages printed next to busy and sleeping processes;
+        // the busy ones keep the CPUs loaded past the first 5 s load sample
+        for (int i = 0; i < 8; i++) {
+            OS.CreateProcess(new TestRealtimeBusy(), OS.PriorityType.realtime);
+        }
+        OS.CreateProcess(new TestRealtimeSleeper(), OS.PriorityType.interactive);
+        OS.CreateProcess(new TestProcessStats(8, 1000), OS.PriorityType.realtime);
+         */
+
+        /*
+        // Same class, different nice values: the lowest nice value runs most often, but all keep progressing
+        OS.CreateProcess(new TestNice(10), OS.PriorityType.interactive);
+        OS.CreateProcess(new TestNice(0), OS.PriorityType.interactive);
+        OS.CreateProcess(new TestNice(-10), OS.PriorityType.interactive);
+         */
+
         /*
         // Create Testcase for that after process awaken, it put that back to correct queue
         OS.CreateProcess(new TestRealtimeSleeper(), OS.PriorityType.realtime);
@@ -35,6 +60,8 @@ public class Init extends UserlandProcess{
         OS.CreateProcess(new TestDeviceFile_1(), OS.PriorityType.realtime);
         // Check all functionality of the device with the random seeds
         OS.CreateProcess(new TestDeviceRandom_1(), OS.PriorityType.realtime);
+        // Same file workload batched through a SyscallRing (one kernel entry per phase)
+        OS.CreateProcess(new TestDevice_SyscallRing(), OS.PriorityType.realtime);
          */
 
         /*
@@ -58,11 +85,22 @@ public class Init extends UserlandProcess{
         OS.CreateProcess(new TestMemory5_VirtualPaging(), OS.PriorityType.interactive);
          */
 
+        /*
+        // Benchmark for context switch round-trip latency (process <-> kernel handoff)
+        OS.CreateProcess(new BenchmarkContextSwitch(), OS.PriorityType.interactive);
+        // Benchmark for creating 100,000 parked processes (run with "--backend small-stack" / "virtual")
+        OS.CreateProcess(new BenchmarkProcessScale(), OS.PriorityType.realtime);
+        // Baseline microbenchmarks of the kernel hot paths (run it on its own)
+        OS.CreateProcess(new BenchmarkKernelHotPaths(), OS.PriorityType.interactive);
+         */
+
         // Test for Memory Assigment
         OS.CreateProcess(new TestMemory6_PageSwapBasic(), OS.PriorityType.realtime);
         OS.CreateProcess(new TestMemory7_SwapStorm(), OS.PriorityType.realtime);
         OS.CreateProcess(new TestMemory8_MultiProcessSwap(), OS.PriorityType.realtime);
         OS.CreateProcess(new TestMemory9_ModifyAfterSwap(), OS.PriorityType.realtime);
+        // Bulk block/int/long access and VirtualIntArray (uncomment to run)
+        // OS.CreateProcess(new TestMemory10_BulkAccess(), OS.PriorityType.realtime);
 
         try {
             Thread.sleep(50);
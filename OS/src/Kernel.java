@@ -1,5 +1,8 @@
+import java.util.ArrayDeque;
 import java.util.Arrays;
-import java.util.Random;
+import java.util.EnumSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Kernel Class
@@ -10,28 +13,98 @@ import java.util.Random;
  */
 public class Kernel extends Process implements Device  {
     // Manages process queues and performs context switching between processes
-    private Scheduler scheduler = new Scheduler(this);
+    private final Scheduler scheduler;
 
     // Simulated virtual file system used for handling file I/O operations
     private VirtualFileSystem vfs = new VirtualFileSystem();
 
     // handle for the swap file (type must match open() return type)
     public static int swapFileId = -1;
-    public static int nextSwapPage = 0;   // which 1KB block on disk we’ll use next
+    public static int nextSwapPage = 0;   // which page-sized block on disk we’ll use next
+    // swap slots given back by freed pages, handed out again before growing the file
+    public static ArrayDeque<Integer> freeSwapPages = new ArrayDeque<>();
 
-    // Tracks the allocation status of physical memory page, true = allocated, false = free
-    public static boolean[] freePage = new boolean[1024];
+    // Tracks which physical memory pages are free (one bit per frame of Hardware's memory)
+    public static FrameAllocator frames;
 
-    // Defines the size (in bytes) of a single memory page
-    final private int sizeOfPage = 1024;
+    // Set by a page fault that found every frame owned by processes running in
+    // user mode: the next of them to enter the kernel gives up one frame
+    private boolean frameWanted = false;
+
+    // Defines the size (in bytes) of a single memory page (configured at boot, see Hardware.ConfigureMemory)
+    final private int sizeOfPage = Hardware.sizeOfPage;
+
+    // Syscall frames submitted by callers and not yet handled, in arrival order
+    // (at most one running process per CPU, plus the boot thread, can be waiting here)
+    private final ArrayBlockingQueue<SyscallFrame> pendingFrames;
+
+    // Handler for every system call, indexed by OS.CallType ordinal
+    private final SyscallTable syscalls = new SyscallTable();
+
+    // Calls that may be queued in a SyscallRing, and the frame used to run each entry
+    private static final EnumSet<OS.CallType> ringCalls = EnumSet.of(
+            OS.CallType.Open, OS.CallType.Close, OS.CallType.Read, OS.CallType.Seek, OS.CallType.Write);
+    private final SyscallFrame ringFrame = new SyscallFrame(null);
+
+    // Frame submitted by the scheduler's wakeup timer; at most one is queued at a time
+    private final SyscallFrame interruptFrame = new SyscallFrame(null);
+    private final AtomicBoolean interruptPending = new AtomicBoolean(false);
+
+    // Per-call-type counters and latency histograms, recorded for every dispatched call
+    private final SyscallStats syscallStats = new SyscallStats();
+
+    public Kernel(BootOptions options) {
+        frames = new FrameAllocator(Hardware.FrameCount());
+        scheduler = new Scheduler(this, options);
+        pendingFrames = new ArrayBlockingQueue<>(Math.max(64, 2 * options.cpuCount));
+
+        // print the syscall statistics when the JVM shuts down
+        if (options.dumpSyscallStats) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() ->
+                    System.out.print("\n===== Syscall statistics =====\n" + syscallStats.Report())));
+        }
+        if (options.dumpTlbStats) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() ->
+                    System.out.print("\n===== TLB statistics =====\n" + Hardware.TlbReport()
+                            + "ASID generation " + scheduler.asids.Generation() + ", "
+                            + scheduler.asids.rollovers + " rollovers\n")));
+        }
+
+        RegisterSyscalls();
 
-    public Kernel() {
         // create the swap file
         swapFileId = vfs.Open("file swapFile.txt");
         if (swapFileId == -1) {
             throw new RuntimeException("Failed to open swap file");
         }
+
+        // the sleeper timer calls back into the kernel, so start it last
+        scheduler.StartWakeupThread();
+    }
+    /**
+     * Queues a caller's syscall frame for the kernel and wakes the kernel up.
+     * Each submitted frame corresponds to exactly one kernel permit.
+     * @param frame the frame describing the requested system call
+     * @return void
+     */
+    public void Submit(SyscallFrame frame) {
+        frame.submitNanos = System.nanoTime();
+        pendingFrames.add(frame);
+        start();
+    }
+
+    /**
+     * Raises a timer interrupt: asks the kernel to wake the sleepers whose time has come.
+     * Called from the scheduler's timer thread; does not wait for the kernel.
+     * @return void
+     */
+    public void TimerInterrupt() {
+        if (interruptPending.compareAndSet(false, true)) {
+            interruptFrame.call = OS.CallType.TimerInterrupt;
+            Submit(interruptFrame);
+        }
     }
+
     /**
      * Main kernel loop.
      * Continuously handles system calls from userland processes
@@ -40,60 +113,146 @@ public class Kernel extends Process implements Device  {
      */
     public void main() {
         while (true) { // kernel runs forever
-            // Dispatch based on the current system call from a user process
-            switch (OS.currentCall) {
-                // extract parameters and create a new process
-                case CreateProcess -> OS.retVal = CreateProcess((UserlandProcess) OS.parameters.get(0), (OS.PriorityType) OS.parameters.get(1));
-
-                // context switch request
-                case SwitchProcess -> SwitchProcess();
-
-                // Priority scheduler calls
-                case Sleep -> Sleep((int) OS.parameters.get(0));
-                case GetPID -> OS.retVal = GetPid();
-                case Exit -> Exit();
-
-                // Devices
-                case Open -> OS.retVal = Open((String)OS.parameters.get(0));
-                case Close -> Close((int)OS.parameters.get(0));
-                case Read -> OS.retVal = Read((int)OS.parameters.get(0), (int)OS.parameters.get(1));
-                case Seek -> Seek((int)OS.parameters.get(0), (int)OS.parameters.get(1));
-                case Write -> OS.retVal = Write((int)OS.parameters.get(0), (byte[]) OS.parameters.get(1));
-
-                // Messages
-                case GetPIDByName -> OS.retVal = GetPidByName((String)OS.parameters.get(0));
-                case SendMessage -> SendMessage((KernelMessage) OS.parameters.get(0));
-                case WaitForMessage -> OS.retVal = WaitForMessage();
-
-                // Memory
-                case GetMapping -> GetMapping((int)OS.parameters.get(0));
-                case AllocateMemory -> OS.retVal = AllocateMemory((int)OS.parameters.get(0));
-                case FreeMemory -> OS.retVal = FreeMemory((int)OS.parameters.get(0), (int)OS.parameters.get(1));
-            }
-            // TODO: Now that we have done the work asked of us, start some process then go to sleep.
-            // Ensure something is runnable before proceeding
-            while (scheduler.currentRunning == null) {
-                SwitchProcess();
-            }
+            SyscallFrame frame = pendingFrames.poll();
+            if (frame != null) {
+                // Serve the CPU the caller runs on (calls from outside any process use CPU 0)
+                scheduler.SelectCpu(frame.owner == null ? 0 : frame.owner.cpuId);
+
+                // A call from outside any process does not stop the running process
+                PCB stillRunning = (frame.owner == null) ? scheduler.cpu.currentRunning : null;
+
+                // A process making a call is stopped: its CPU's TLB and frames can be touched now
+                if (frame.owner != null) {
+                    scheduler.EnterKernel(scheduler.cpu);
+                    if (frameWanted && scheduler.PhysicalMemoryAvailabilityCheck(frame.owner)) {
+                        frames.Free(EvictPage(frame.owner));
+                        frameWanted = false;
+                    }
+                }
+
+                // Dispatch through the syscall table entry of the call stored in the caller's frame
+                long dispatchStart = System.nanoTime();
+                scheduler.SampleLoad(dispatchStart);
+                syscalls.Invoke(frame);
+                long handled = System.nanoTime() - dispatchStart;
+                syscallStats.Record(frame.call, dispatchStart - frame.submitNanos, handled);
+                if (frame.owner != null) {
+                    frame.owner.kernelNanos += handled;
+                }
+
+                // WaitForMessage without a message is completed later by SendMessage
+                if (frame.call != OS.CallType.WaitForMessage || frame.refResult != null) {
+                    frame.markComplete();
+                }
+
+                // If this CPU has nothing to run, look for work once; otherwise it idles
+                if (scheduler.cpu.currentRunning == null) {
+                    SwitchProcess();
+                }
 
-            // Start the chosen process
-            GetCurrentRunningProcess().start();
+                // Start the chosen process (unless it never stopped for this call)
+                PCB next = GetCurrentRunningProcess();
+                if (next != null && next != stillRunning) {
+                    scheduler.cpu.userMode = true;
+                    next.start();
+                }
+
+                // The call may have made work available for CPUs that are idle
+                StartIdleCpus();
+            }
 
-            // Call stop() on myself(kernel), so that there is only one process is running
+            // Call stop() on myself(kernel), so that there is only one process is running.
+            // With every CPU idle this parks the kernel until the next event: a syscall
+            // (new process, message, I/O) or the timer interrupt for a sleeper.
             this.stop();
         }
     }
 
     /**
-     * Performs a context switch using the scheduler.
+     * Fills the system call table with the kernel method behind every OS.CallType.
+     * @return void
+     */
+    private void RegisterSyscalls() {
+        // extract parameters and create a new process
+        syscalls.RegisterRefIntToInt(OS.CallType.CreateProcess, UserlandProcess.class,
+                (up, priority) -> CreateProcess(up, OS.priorityTypes[priority]));
+
+        // context switch request
+        syscalls.RegisterNoArgs(OS.CallType.SwitchProcess, this::SwitchProcess);
+
+        // Priority scheduler calls
+        syscalls.RegisterInt(OS.CallType.Sleep, this::Sleep);
+        syscalls.RegisterLong(OS.CallType.SleepNanos, this::SleepNanos);
+        syscalls.RegisterNoArgsToInt(OS.CallType.GetPID, this::GetPid);
+        syscalls.RegisterIntToBool(OS.CallType.SetNice, this::SetNice);
+        syscalls.RegisterIntIntToBool(OS.CallType.SetQuantum,
+                (priority, millis) -> scheduler.SetQuantum(OS.priorityTypes[priority], millis));
+        syscalls.RegisterIntToInt(OS.CallType.GetQuantum,
+                priority -> scheduler.GetQuantum(OS.priorityTypes[priority]));
+        syscalls.RegisterIntIntToBool(OS.CallType.SetDemotionThreshold,
+                (priority, timeouts) -> scheduler.SetDemotionThreshold(OS.priorityTypes[priority], timeouts));
+        syscalls.RegisterIntIntIntToBool(OS.CallType.SetRealtimeParams, scheduler::SetRealtimeParams);
+        syscalls.RegisterNoArgsToInt(OS.CallType.SleepUntilNextPeriod, this::SleepUntilNextPeriod);
+        syscalls.RegisterNoArgs(OS.CallType.Exit, this::Exit);
+
+        // Devices
+        syscalls.RegisterRefToInt(OS.CallType.Open, String.class, this::Open);
+        syscalls.RegisterInt(OS.CallType.Close, this::Close);
+        syscalls.RegisterIntIntToRef(OS.CallType.Read, this::Read);
+        syscalls.RegisterIntInt(OS.CallType.Seek, this::Seek);
+        syscalls.RegisterIntBytesToInt(OS.CallType.Write, this::Write);
+        syscalls.RegisterRefToInt(OS.CallType.SubmitRing, SyscallRing.class, this::SubmitRing);
+
+        // Interrupts (raised by the kernel's own timers, never by userland)
+        syscalls.RegisterNoArgs(OS.CallType.TimerInterrupt, () -> {
+            interruptPending.set(false);
+            scheduler.WakeSleepers();
+        });
+
+        // Statistics
+        syscalls.RegisterNoArgsToRef(OS.CallType.GetSyscallStats, syscallStats::Snapshot);
+        syscalls.RegisterNoArgsToRef(OS.CallType.GetQueueDump, scheduler::QueueDump);
+        syscalls.RegisterNoArgsToRef(OS.CallType.GetSchedulerMetrics, scheduler::MetricsSnapshot);
+        syscalls.RegisterIntToRef(OS.CallType.GetProcessStats, scheduler::ProcessStatsOf);
+        syscalls.RegisterNoArgsToRef(OS.CallType.GetAllProcessStats, scheduler::AllProcessStats);
+
+        // Messages
+        syscalls.RegisterRef(OS.CallType.SendMessage, KernelMessage.class, this::SendMessage);
+        syscalls.RegisterNoArgsToRef(OS.CallType.WaitForMessage, this::WaitForMessage);
+
+        // Memory
+        syscalls.RegisterInt(OS.CallType.GetMapping, this::GetMapping);
+        syscalls.RegisterIntToInt(OS.CallType.AllocateMemory, this::AllocateMemory);
+        syscalls.RegisterIntIntToBool(OS.CallType.FreeMemory, this::FreeMemory);
+    }
+
+    /**
+     * Performs a context switch on the served CPU using the scheduler.
      * Selects and sets the next runnable process.
      * @return void
      */
     private void SwitchProcess() {
-        ClearTLB(Hardware.tlb);
         scheduler.SwitchProcess();
     }
 
+    /**
+     * Gives work to every idle CPU: each idle CPU picks (or steals) a runnable
+     * process, which is then started on it. CPUs that find nothing stay idle.
+     * @return void
+     */
+    private void StartIdleCpus() {
+        for (Cpu c : scheduler.cpus) {
+            if (c.currentRunning == null && scheduler.HasQueuedWork()) {
+                scheduler.SelectCpu(c.id);
+                SwitchProcess();
+                if (c.currentRunning != null) {
+                    c.userMode = true;
+                    c.currentRunning.start();
+                }
+            }
+        }
+    }
+
     /**
      * Creates a new process and adds it to the scheduler.
      * @param up the userland process to create
@@ -105,11 +264,12 @@ public class Kernel extends Process implements Device  {
     }
 
     /**
-     * Gets the PCB (process control block) of the currently running process.
+     * Gets the PCB (process control block) of the process running on the served CPU,
+     * i.e. the process whose system call is being handled.
      * @return PCB the current running process
      */
     public PCB GetCurrentRunningProcess(){
-        return scheduler.currentRunning;
+        return scheduler.cpu.currentRunning;
     }
 
     /**
@@ -119,17 +279,40 @@ public class Kernel extends Process implements Device  {
      * @return void
      */
     private void Sleep(int mills) {
-        scheduler.Sleep(mills);
+        SleepNanos(mills * 1_000_000L);
+    }
+
+    /**
+     * Puts the current process to sleep for a duration in nanoseconds.
+     * Then triggers a context switch to another process.
+     * @param nanos duration to sleep
+     * @return void
+     */
+    private void SleepNanos(long nanos) {
+        scheduler.Sleep(nanos);
         scheduler.SwitchProcess();
     }
 
+    /**
+     * Ends the current job of a deadline process and switches to another
+     * process until its next period starts.
+     * @return int periods lost (see OS.SleepUntilNextPeriod), -1 if not a deadline process
+     */
+    private int SleepUntilNextPeriod() {
+        int lost = scheduler.SleepUntilNextPeriod();
+        if (lost >= 0) {
+            scheduler.SwitchProcess();
+        }
+        return lost;
+    }
+
     /**
      * Terminates the current process and performs cleanup.
      * Removes it from all scheduler queues and maps, and switches to another process.
      * @return void
      */
     private void Exit() {
-        while(scheduler.currentRunning == null) {
+        while(scheduler.cpu.currentRunning == null) {
             try {
                 Thread.sleep(10);
             } catch (InterruptedException e) {
@@ -138,7 +321,7 @@ public class Kernel extends Process implements Device  {
         }
 
         // unscheduled the current process so that it never gets run again
-        System.out.println("The Process is Terminated: " + scheduler.currentRunning.pid);
+        KernelLog.Log(KernelLog.Event.ProcessTerminated, scheduler.cpu.currentRunning.pid);
         // clean Up the device
         CleanUpDevice(GetCurrentRunningProcess());
         // remove it from the hashmap in scheduler
@@ -147,13 +330,12 @@ public class Kernel extends Process implements Device  {
         scheduler.ClearMessageInQueue();
         // remove the process from the waiting message map
         scheduler.RemoveCurrentProcessFromWaitingProcessMap();
-        // free the memory
+        // free the memory (its TLB entries went with its ASID when it left the map)
         FreeAllMemory(GetCurrentRunningProcess());
-        // clear TLB
-        ClearTLB(Hardware.tlb);
 
         // remove the process from the queue
-        scheduler.currentRunning = null;
+        scheduler.EndRun();
+        scheduler.cpu.currentRunning = null;
         //schedule should choose something else to run
         SwitchProcess();
     }
@@ -166,6 +348,19 @@ public class Kernel extends Process implements Device  {
         return GetCurrentRunningProcess().pid;
     }
 
+    /**
+     * Sets the nice value of the current process.
+     * @param nice the new nice value (RunQueue.minNice .. RunQueue.maxNice)
+     * @return boolean false if the value is out of range
+     */
+    private boolean SetNice(int nice) {
+        if (nice < RunQueue.minNice || nice > RunQueue.maxNice) {
+            return false;
+        }
+        GetCurrentRunningProcess().nice = nice;
+        return true;
+    }
+
     /**
      * Sends a message from the current process to another process.
      * Adds the message to the target process’s queue and requeues it if waiting.
@@ -186,12 +381,15 @@ public class Kernel extends Process implements Device  {
         }
         // add message to the target process's message queue
         targetPCB.messageQueue.add(copyMessage);
-        System.out.println("Sending Message From " + copyMessage.senderPid + " to " + targetPCB.pid);
+        KernelLog.Log(KernelLog.Event.MessageSent, copyMessage.senderPid, targetPCB.pid);
 
-        // if this PCB is waiting for a message (see below), restore it to its proper runnable queue
+        // if this PCB is waiting for a message (see below), hand it the message
+        // through its own syscall frame and restore it to its proper runnable queue
         if (scheduler.CheckWaitingProcess(copyMessage.targetPid) != null) {
             scheduler.RemoveWaitingProcess(copyMessage.targetPid);
-            scheduler.Requeue(targetPCB);
+            targetPCB.syscallFrame.refResult = targetPCB.messageQueue.remove();
+            targetPCB.syscallFrame.markComplete();
+            scheduler.Wakeup(targetPCB);
         }
 
         SwitchProcess();
@@ -199,8 +397,9 @@ public class Kernel extends Process implements Device  {
 
     /**
      * Waits for a message in the current process’s inbox.
-     * If none exists, moves the process to the waiting map until a message arrives.
-     * @return KernelMessage the received message
+     * If none exists, moves the process to the waiting map until a message arrives;
+     * SendMessage() then delivers the message directly into the waiter's syscall frame.
+     * @return KernelMessage the received message, or null if the caller now blocks
      */
     private KernelMessage WaitForMessage() {
         PCB me = GetCurrentRunningProcess();
@@ -211,36 +410,13 @@ public class Kernel extends Process implements Device  {
         }
 
         // block until a message arrives
-        while (true) {
-            System.out.println("No Message, Gets Into Wating Queue");
-            // mark as waiting and ensure it's NOT in a ready queue
-            scheduler.PutCurrentProcessInTheWaitingMap();
-            scheduler.RemoveFromPriorityQueue(me);
-            System.out.println("END");
-            scheduler.PrintQueues();
-            // yield so someone else can run and deliver the message
-            SwitchProcess();
-
-            // when scheduled again, re-check our inbox
-            me = GetCurrentRunningProcess();
-            if (me.messageQueue != null && !me.messageQueue.isEmpty()) {
-                return me.messageQueue.remove();
-            }
-        }
-    }
-
-    /**
-     * Looks up a process by its name.
-     * @param name the process name
-     * @return int the PID if found, or -1 if not found
-     */
-    private int GetPidByName(String name) {
-        for (PCB pcb : scheduler.processMap.values()) {
-            if (pcb.getName().equals(name)) {
-                return pcb.pid;
-            }
-        }
-        return -1;
+        KernelLog.Log(KernelLog.Event.MessageWait, me.pid);
+        // mark as waiting and ensure it's NOT in a ready queue
+        scheduler.PutCurrentProcessInTheWaitingMap();
+        scheduler.RemoveFromPriorityQueue(me);
+        // yield so someone else can run and deliver the message
+        SwitchProcess();
+        return null;
     }
 
     /**
@@ -260,38 +436,43 @@ public class Kernel extends Process implements Device  {
      *        • If NO free physical pages exist:
      *              - Invoke PageSwap(...) to evict a victim page and reuse its frame.
      *
-     *  3. Insert (virtualPage → physicalPage) into a random TLB slot.
+     *  3. Insert (virtualPage → physicalPage) into the caller's CPU TLB (replacing its set's LRU entry).
      *
      * Notes:
      *  - This function performs lazy physical allocation: frames are created only
      *    when a page is first accessed.
      *  - Swapped-out pages are restored from disk; never-saved pages are zero-initialized.
      *
+     * An unallocated or out-of-range virtual page terminates the process.
+     *
      * @param virtualPage the virtual page number that triggered the TLB miss
      */
 
     private void GetMapping(int virtualPage) {
         PCB p = GetCurrentRunningProcess();
 
-        if (p.virtualMemoryMappingTable[virtualPage] == null) {
-            throw new RuntimeException("Virtual memory mapping not found in scheduler");
+        // an address outside what the process allocated kills the process, not the kernel
+        if (virtualPage < 0 || virtualPage >= p.virtualMemoryMappingTable.length
+                || p.virtualMemoryMappingTable[virtualPage] == null) {
+            KernelLog.Log(KernelLog.Event.SegmentationFault, p.pid, virtualPage);
+            Exit();
+            return;
         }
 
         int physicalPage = p.virtualMemoryMappingTable[virtualPage].physicalPage;
 
         // this virtual memory page does not have physical page for it
         if (physicalPage == -1) {
-            // find a physical page in the “in use” array and assign it
-            if (AvailablePhysicalPages(freePage) > 0){
-                physicalPage = AvailablePhysicalPageArrayNumber();
-                freePage[physicalPage] = true;
+            // take a free physical page and assign it
+            if (frames.FreeCount() > 0){
+                physicalPage = frames.Allocate();
 
                 // Assign the free frame to the virtual page
                 p.virtualMemoryMappingTable[virtualPage].physicalPage = physicalPage;
 
                 // --- load from disk or zero fill ---
                 if (p.virtualMemoryMappingTable[virtualPage].diskPage != -1) {
-                    int offset = p.virtualMemoryMappingTable[virtualPage].diskPage * sizeOfPage;
+                    int offset = SwapOffset(p.virtualMemoryMappingTable[virtualPage].diskPage);
                     vfs.Seek(swapFileId, offset);
                     byte[] buffer = vfs.Read(swapFileId, sizeOfPage);
                     Hardware.WritePhysicalMemory(physicalPage, buffer);
@@ -303,12 +484,15 @@ public class Kernel extends Process implements Device  {
             // do a page swap to free one up
             else{
                 physicalPage = PageSwap(p, virtualPage);
+                if (physicalPage == -1) {
+                    // no frame can be taken right now: let others run, the access retries the fault
+                    SwitchProcess();
+                    return;
+                }
             }
         }
 
-        int num = new Random().nextInt(2);
-        Hardware.tlb[num][0] = virtualPage;
-        Hardware.tlb[num][1] = physicalPage;
+        Hardware.tlbs[scheduler.cpu.id].Insert(virtualPage, physicalPage);
     }
 
     /**
@@ -339,7 +523,7 @@ public class Kernel extends Process implements Device  {
 
         /*
         // terminate if physical page not enough
-        if (AvailablePhysicalPages(freePage) < numberOfPages) {
+        if (frames.FreeCount() < numberOfPages) {
             throw new RuntimeException("Free physical page is too small");
         }
 
@@ -357,21 +541,6 @@ public class Kernel extends Process implements Device  {
             p.virtualMemoryMappingTable[i] = new VirtualToPhysicalMapping();
         }
 
-        /*
-        for (int i = 0; i < freePage.length; i++){
-            if (!freePage[i]){
-                // assigning the virtual memory index to that physical memory page (changing the boolean array value)
-                p.virtualMemoryMappingTable[start] = i;
-                freePage[i] = true;
-                start++;
-            }
-
-            // if all virtual page assigned a physical page
-            if (start == end){
-                return result * sizeOfPage;
-            }
-        }
-         */
         return result * sizeOfPage;
 
         /*
@@ -398,23 +567,24 @@ public class Kernel extends Process implements Device  {
         // get process
         PCB p = GetCurrentRunningProcess();
 
-        int physicalPage;
-
-        // free the virtual table
-        // free the boolean array of physical memory address
+        // free the virtual table, collecting the physical pages to release in one batch
+        int[] released = new int[numberOfPages];
+        int count = 0;
         for (int i = 0; i < numberOfPages; i++) {
             VirtualToPhysicalMapping map = p.virtualMemoryMappingTable[start + i];
 
             if (map != null) {
                 // clear both physical + disk reference
                 if (map.physicalPage != -1) {
-                    freePage[map.physicalPage] = false;
+                    released[count++] = map.physicalPage;
+                    Hardware.InvalidatePhysicalPage(map.physicalPage, scheduler.cpus);
                     map.physicalPage = -1;
                 }
-                map.diskPage = -1;
+                ReleaseSwapPage(map);
                 p.virtualMemoryMappingTable[start + i] = null;
             }
         }
+        frames.Free(released, count);
         return true;
     }
 
@@ -430,19 +600,24 @@ public class Kernel extends Process implements Device  {
             return;
         }
 
+        int[] released = new int[p.virtualMemoryMappingTable.length];
+        int count = 0;
         for (int i = 0; i < p.virtualMemoryMappingTable.length; i++) {
             VirtualToPhysicalMapping map = p.virtualMemoryMappingTable[i];
 
             if (map != null) {
                 // free physical memory if used
                 if (map.physicalPage != -1) {
-                    freePage[map.physicalPage] = false;
+                    released[count++] = map.physicalPage;
                 }
+                // give its swap slot back
+                ReleaseSwapPage(map);
 
                 // delete virtual→physical entry
                 p.virtualMemoryMappingTable[i] = null;
             }
         }
+        frames.Free(released, count);
 
     }
 
@@ -539,6 +714,42 @@ public class Kernel extends Process implements Device  {
         return vfs.Write(GetCurrentRunningProcess().vfsID[id], data);
     }
 
+    /**
+     * Executes every operation queued in a syscall ring, in submission order,
+     * and fills in the ring's completion arrays.
+     * A failing operation completes with -1; the remaining operations still run.
+     * @param ring the batch submitted by the current process
+     * @return int the number of operations executed
+     */
+    private int SubmitRing(SyscallRing ring) {
+        int count = ring.Size();
+        for (int i = 0; i < count; i++) {
+            ring.refResults[i] = null;
+            // only device calls may be batched
+            if (!ringCalls.contains(ring.calls[i])) {
+                ring.results[i] = -1;
+                continue;
+            }
+            // run the entry through the syscall table using the kernel's scratch frame
+            ringFrame.call = ring.calls[i];
+            ringFrame.intArg0 = ring.intArg0[i];
+            ringFrame.intArg1 = ring.intArg1[i];
+            ringFrame.refArg = ring.refArgs[i];
+            ringFrame.intResult = 0;
+            ringFrame.refResult = null;
+            try {
+                syscalls.Invoke(ringFrame);
+                ring.results[i] = ringFrame.intResult;
+                ring.refResults[i] = ringFrame.refResult;
+            } catch (RuntimeException e) {
+                ring.results[i] = -1;
+            }
+        }
+        ringFrame.refArg = null;
+        ringFrame.refResult = null;
+        return count;
+    }
+
     /**
      * Finds a contiguous sequence of empty virtual pages in the given process's
      * virtual memory mapping table that is large enough to satisfy a memory allocation request.
@@ -568,110 +779,135 @@ public class Kernel extends Process implements Device  {
     }
 
     /**
-     * Clears all entries in the provided TLB array by setting
-     * every value to zero.
+     * Swaps out a victim page from a randomly chosen process and loads the
+     * requested virtual page into the freed physical frame.
      *
-     * This is typically used during system initialization or
-     * when switching between processes to prevent stale address mappings.
+     * Steps:
+     *  1. Pick a victim process (one that is not running in user mode on a CPU)
+     *     and evict one of its pages (EvictPage).
+     *  2. Give the freed physical frame to the faulting process (myMap.physicalPage).
+     *  3. If the faulting page has old data on disk, load it into RAM.
+     *     Otherwise, zero-initialize the new physical frame.
      *
-     * @param tlb the Translation Lookaside Buffer to clear
-     */
-    private void ClearTLB(int[][] tlb){
-        for (int i = 0; i < tlb.length; i++) {
-            for (int j = 0; j < tlb[i].length; j++) {
-                tlb[i][j] = -1;
-            }
-        }
-    }
-
-    /**
-     * Counts the number of available (unused) physical pages in the system.
-     * Each entry in the freePage array represents one physical page, where
-     * false means the page is free and true means it is currently allocated.
+     * If every frame belongs to processes running on other CPUs, those are asked
+     * to stop (like an inter-processor interrupt) and give up a frame when they
+     * enter the kernel; nothing is mapped now and -1 is returned.
      *
-     * @param freePage the boolean array tracking physical page availability
-     * @return the total number of free physical pages
+     * @param p            the process needing a physical frame
+     * @param virtualPage  the virtual page that triggered the page fault
+     * @return the physical frame number assigned to the faulting page, or -1
      */
-    public int AvailablePhysicalPages(boolean[] freePage) {
-        int count = 0;
-        for (boolean b : freePage) {
-            if (!b) count++;
+    private int PageSwap(PCB p, int virtualPage){
+        // do a page swap to free one up
+        PCB randomPCB = scheduler.GetRandomProcesss();  // victim process
+        if (randomPCB == null) {
+            frameWanted = true;
+            scheduler.RequestStopOfFrameOwners();
+            return -1;
         }
-        return count;
-    }
+        int physicalPage = EvictPage(randomPCB);
 
-    /**
-     * Scans the freePage[] bitmap for the first unused physical frame.
-     *
-     * @return index of the first free physical page (0–1023),
-     *         or -1 if no free physical memory remains.
-     */
-    private int AvailablePhysicalPageArrayNumber(){
-        int result;
-        for (int i = 0; i < freePage.length; i++) {
-            if (!freePage[i]) {
-                result = i;
-                return result;
-            }
+        // assign this physical frame to the faulting page
+        VirtualToPhysicalMapping myMap = p.virtualMemoryMappingTable[virtualPage];
+        myMap.physicalPage = physicalPage;
+
+        //  if data was previously written to disk (the on disk page number is not -1)
+        if (myMap.diskPage != -1){
+            //  then we have to load the old data in and populate the physical page.
+            int offset = SwapOffset(myMap.diskPage);
+            vfs.Seek(swapFileId, offset);
+            byte[] buffer = vfs.Read(swapFileId, sizeOfPage);
+            Hardware.WritePhysicalMemory(p.virtualMemoryMappingTable[virtualPage].physicalPage, buffer);
         }
-        return -1;
+        else{
+            // zero-fill the new physical frame
+            byte[] zeros = new byte[sizeOfPage];
+            Hardware.WritePhysicalMemory(p.virtualMemoryMappingTable[virtualPage].physicalPage, zeros);
+        }
+
+        return physicalPage;
     }
 
     /**
-     * Swaps out a victim page from a randomly chosen process and loads the
-     * requested virtual page into the freed physical frame.
+     * Writes one resident page of a stopped process to the swap file and
+     * takes its frame away.
      *
      * Steps:
-     *  1. Pick a victim process and a victim virtual page that is currently in RAM.
-     *  2. If the victim page has never been written to disk, assign a new disk slot.
+     *  1. Pick a victim virtual page that is currently in RAM.
+     *  2. If the victim page has never been written to disk, assign it a disk slot.
      *  3. Write the victim’s physical frame to its diskPage in the swap file.
      *  4. Mark the victim page as no longer in physical memory.
-     *  5. Give the freed physical frame to the faulting process (myMap.physicalPage).
-     *  6. If the faulting page has old data on disk, load it into RAM.
-     *     Otherwise, zero-initialize the new physical frame.
      *
-     * @param p            the process needing a physical frame
-     * @param virtualPage  the virtual page that triggered the page fault
-     * @return the physical frame number assigned to the faulting page
+     * @param randomPCB the victim process (owns a frame, not running in user mode)
+     * @return the physical frame number taken from it
      */
-    private int PageSwap(PCB p, int virtualPage){
-        // do a page swap to free one up
-        PCB randomPCB = scheduler.GetRandomProcesss();  // victim process
+    private int EvictPage(PCB randomPCB){
         int victimPage = scheduler.GetVictimPage(randomPCB);    // victim page in that victim process
         VirtualToPhysicalMapping victimMap = randomPCB.virtualMemoryMappingTable[victimPage];
         int physicalPage = victimMap.physicalPage;
 
         if (victimMap.diskPage == -1) {
-            victimMap.diskPage = nextSwapPage++;
+            victimMap.diskPage = AllocateSwapPage();
         }
 
         // write the victim's data into disk(swap file) - save victim's data in disk
-        int offset = victimMap.diskPage * sizeOfPage;
+        int offset = SwapOffset(victimMap.diskPage);
         vfs.Seek(swapFileId, offset);
         byte[] data = Hardware.ReadPhysicalMemory(physicalPage);
         vfs.Write(swapFileId, data);
 
-        // set victim page to -1
+        // set victim page to -1, and drop any cached translation of it on every CPU
         victimMap.physicalPage = -1;
+        Hardware.InvalidatePhysicalPage(physicalPage, scheduler.cpus);
 
-        // assign this physical frame to the faulting page
-        VirtualToPhysicalMapping myMap = p.virtualMemoryMappingTable[virtualPage];
-        myMap.physicalPage = physicalPage;
+        return physicalPage;
+    }
 
-        //  if data was previously written to disk (the on disk page number is not -1)
-        if (myMap.diskPage != -1){
-            //  then we have to load the old data in and populate the physical page.
-            offset = myMap.diskPage * sizeOfPage;
-            vfs.Seek(swapFileId, offset);
-            byte[] buffer = vfs.Read(swapFileId, sizeOfPage);
-            Hardware.WritePhysicalMemory(p.virtualMemoryMappingTable[virtualPage].physicalPage, buffer);
+    /**
+     * Hands out a page-sized slot in the swap file, reusing one freed by
+     * FreeMemory/FreeAllMemory before growing the file.
+     *
+     * @return the swap page number
+     * @throws RuntimeException if the swap file would grow past what Seek can address
+     */
+    private int AllocateSwapPage(){
+        Integer reused = freeSwapPages.poll();
+        if (reused != null) {
+            return reused;
         }
-        else{
-            // zero-fill the new physical frame
-            byte[] zeros = new byte[sizeOfPage];
-            Hardware.WritePhysicalMemory(p.virtualMemoryMappingTable[virtualPage].physicalPage, zeros);
+        // the last byte of the new slot must still be reachable with an int offset
+        if ((long) (nextSwapPage + 1) * sizeOfPage > Integer.MAX_VALUE) {
+            throw new RuntimeException("Swap file is full");
         }
+        return nextSwapPage++;
+    }
 
-        return physicalPage;
+    /**
+     * Gives a mapping's swap slot back for reuse and clears it.
+     *
+     * @param map the mapping being freed
+     * @return void
+     */
+    private void ReleaseSwapPage(VirtualToPhysicalMapping map){
+        if (map.diskPage != -1) {
+            freeSwapPages.push(map.diskPage);
+            map.diskPage = -1;
+        }
+    }
+
+    /**
+     * Byte offset of a swap page in the swap file, computed in long so large
+     * page sizes cannot wrap it negative.
+     *
+     * @param diskPage the swap page number
+     * @return the offset to Seek to
+     * @throws RuntimeException if the offset does not fit Seek's int position
+     */
+    private int SwapOffset(int diskPage){
+        long offset = (long) diskPage * sizeOfPage;
+        if (diskPage < 0 || offset + sizeOfPage > Integer.MAX_VALUE) {
+            throw new RuntimeException("Swap page out of range: " + diskPage);
+        }
+        return (int) offset;
     }
-}
\ No newline at end of file
+}
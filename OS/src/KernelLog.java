@@ -0,0 +1,279 @@
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * KernelLog class.
+ * ----------------
+ * Asynchronous event log for the kernel and scheduler.
+ *
+ * Instead of calling System.out.println() while holding the CPU, the kernel
+ * records a small binary event (timestamp, event type and up to three int
+ * arguments) into a preallocated ring buffer. A background "kernel-log"
+ * thread drains the ring, formats the events and writes them to the console.
+ *
+ * - Log() never allocates and never blocks: a slot is claimed with a CAS on
+ *   the head index. If the writer falls a whole ring behind, new events are
+ *   dropped and counted instead of stalling the kernel.
+ * - Every event has a Level; events below the configured level are discarded
+ *   before touching the ring. Level.quiet turns all output off.
+ * - Pending events are flushed when the JVM shuts down.
+ *
+ * Kernel log lines are printed shortly after the fact, so they may interleave
+ * differently with output printed directly by userland processes.
+ */
+public class KernelLog {
+    public enum Level {debug, info, warn, quiet}
+
+    /**
+     * Kinds of events the kernel records. Each one has a level and knows how
+     * to format its arguments.
+     */
+    public enum Event {
+        ProcessCreated(Level.info) {
+            void Format(StringBuilder sb, int a, int b, int c) {
+                sb.append("Created process ").append(a).append(" (").append(OS.priorityTypes[b]).append(')');
+            }
+        },
+        ProcessTerminated(Level.info) {
+            void Format(StringBuilder sb, int a, int b, int c) {
+                sb.append("The Process is Terminated: ").append(a);
+            }
+        },
+        ProcessSleeping(Level.info) {
+            void Format(StringBuilder sb, int a, int b, int c) {
+                sb.append("process: ").append(a).append(" sleeping now for ").append(b / 1000.0).append(" ms");
+            }
+        },
+        ProcessWokeUp(Level.info) {
+            void Format(StringBuilder sb, int a, int b, int c) {
+                sb.append("Process ").append(a).append(" woke up and requeued.");
+            }
+        },
+        MessageSent(Level.info) {
+            void Format(StringBuilder sb, int a, int b, int c) {
+                sb.append("Sending Message From ").append(a).append(" to ").append(b);
+            }
+        },
+        MessageWait(Level.info) {
+            void Format(StringBuilder sb, int a, int b, int c) {
+                sb.append("No Message, process ").append(a).append(" gets into the waiting queue");
+            }
+        },
+        ProcessDemoted(Level.info) {
+            void Format(StringBuilder sb, int a, int b, int c) {
+                sb.append("Process ").append(a).append(" demoted from ").append(OS.priorityTypes[b])
+                        .append(" to ").append(OS.priorityTypes[c]);
+            }
+        },
+        ProcessPromoted(Level.info) {
+            void Format(StringBuilder sb, int a, int b, int c) {
+                sb.append("Process ").append(a).append(" promoted from ").append(OS.priorityTypes[b])
+                        .append(" to ").append(OS.priorityTypes[c]);
+            }
+        },
+        ProcessBoosted(Level.debug) {
+            void Format(StringBuilder sb, int a, int b, int c) {
+                sb.append("Process ").append(a).append(" waited too long, boosted from ").append(OS.priorityTypes[b])
+                        .append(" to ").append(OS.priorityTypes[c]);
+            }
+        },
+        DeadlineAdmitted(Level.info) {
+            void Format(StringBuilder sb, int a, int b, int c) {
+                sb.append("Process ").append(a).append(" admitted to the deadline class (")
+                        .append(b / 10_000.0).append("% of CPU ").append(c).append(')');
+            }
+        },
+        DeadlineRejected(Level.warn) {
+            void Format(StringBuilder sb, int a, int b, int c) {
+                sb.append("Process ").append(a).append(" rejected by admission control (")
+                        .append(b / 10_000.0).append("% more would exceed CPU ").append(c).append(')');
+            }
+        },
+        DeadlineThrottled(Level.debug) {
+            void Format(StringBuilder sb, int a, int b, int c) {
+                sb.append("Process ").append(a).append(" used up its runtime, throttled for ").append(b).append(" ms");
+            }
+        },
+        DeadlineMissed(Level.warn) {
+            void Format(StringBuilder sb, int a, int b, int c) {
+                sb.append("Process ").append(a).append(" missed its deadline (").append(b).append(" periods lost)");
+            }
+        },
+        SegmentationFault(Level.warn) {
+            void Format(StringBuilder sb, int a, int b, int c) {
+                sb.append("Process ").append(a).append(" touched unallocated virtual page ").append(b).append(", terminated");
+            }
+        },
+        ContextSwitch(Level.debug) {
+            void Format(StringBuilder sb, int a, int b, int c) {
+                sb.append("CPU ").append(a).append(": switching from ").append(Pid(b)).append(" to ").append(Pid(c));
+            }
+        };
+
+        final Level level;
+
+        Event(Level level) {
+            this.level = level;
+        }
+
+        abstract void Format(StringBuilder sb, int a, int b, int c);
+
+        // -1 stands for "no process" in pid arguments
+        private static String Pid(int pid) {
+            return pid < 0 ? "none" : Integer.toString(pid);
+        }
+    }
+
+    // Ring capacity (a power of two so the slot is index & mask)
+    private static final int capacity = 8192;
+    private static final int mask = capacity - 1;
+
+    private static final Event[] events = Event.values();
+
+    // Event storage, one slot per entry
+    private static final long[] times = new long[capacity];
+    private static final int[] types = new int[capacity];
+    private static final int[] arg0 = new int[capacity];
+    private static final int[] arg1 = new int[capacity];
+    private static final int[] arg2 = new int[capacity];
+
+    // published[slot] == index + 1 once the event with that index is fully written
+    private static final AtomicLongArray published = new AtomicLongArray(capacity);
+
+    // Next index to claim (producers) and next index to print (writer)
+    private static final AtomicLong head = new AtomicLong();
+    private static volatile long tail = 0;
+
+    private static final AtomicLong dropped = new AtomicLong();
+    private static volatile int threshold = Level.info.ordinal();
+
+    private static final long bootNanos = System.nanoTime();
+    private static final PrintStream out = System.out;
+    private static final Object drainLock = new Object();
+
+    static {
+        Thread writer = new Thread(KernelLog::WriterLoop, "kernel-log");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(KernelLog::Flush, "kernel-log-flush"));
+    }
+
+    /**
+     * Sets the lowest level that is recorded.
+     * @param level the new threshold (Level.quiet disables the log)
+     * @return void
+     */
+    public static void SetLevel(Level level) {
+        threshold = level.ordinal();
+    }
+
+    /**
+     * Parses a level name given on the command line.
+     * @param name debug, info, warn or quiet
+     * @return Level the matching level
+     * @throws IllegalArgumentException if the name is unknown
+     */
+    public static Level ParseLevel(String name) {
+        try {
+            return Level.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown log level: " + name + " (use debug, info, warn or quiet)");
+        }
+    }
+
+    /** @return true if events of this kind are currently recorded */
+    public static boolean IsEnabled(Event event) {
+        return event.level.ordinal() >= threshold;
+    }
+
+    public static void Log(Event event, int a) {
+        Log(event, a, 0, 0);
+    }
+
+    public static void Log(Event event, int a, int b) {
+        Log(event, a, b, 0);
+    }
+
+    /**
+     * Records one event. Lock-free and allocation-free; drops the event if the ring is full.
+     * @param event the kind of event
+     * @param a first argument
+     * @param b second argument
+     * @param c third argument
+     * @return void
+     */
+    public static void Log(Event event, int a, int b, int c) {
+        if (event.level.ordinal() < threshold) {
+            return;
+        }
+        long index;
+        do {
+            index = head.get();
+            if (index - tail >= capacity) {
+                dropped.incrementAndGet();
+                return;
+            }
+        } while (!head.compareAndSet(index, index + 1));
+
+        int slot = (int) (index & mask);
+        times[slot] = System.nanoTime();
+        types[slot] = event.ordinal();
+        arg0[slot] = a;
+        arg1[slot] = b;
+        arg2[slot] = c;
+        published.lazySet(slot, index + 1);
+    }
+
+    /**
+     * Prints every event published so far.
+     * @return void
+     */
+    public static void Flush() {
+        Drain();
+    }
+
+    /**
+     * Background writer: drains the ring, then naps briefly when it is empty.
+     * @return void
+     */
+    private static void WriterLoop() {
+        while (true) {
+            if (!Drain()) {
+                LockSupport.parkNanos(1_000_000);
+            }
+        }
+    }
+
+    /**
+     * Formats and prints published events in order, stopping at the first
+     * slot that is claimed but not yet written.
+     * @return boolean true if at least one event was printed
+     */
+    private static boolean Drain() {
+        synchronized (drainLock) {
+            StringBuilder sb = new StringBuilder();
+            long index = tail;
+            while (published.get((int) (index & mask)) == index + 1) {
+                int slot = (int) (index & mask);
+                Event event = events[types[slot]];
+                sb.append(String.format("[%10.6f %-5s] ", (times[slot] - bootNanos) / 1e9, event.level));
+                event.Format(sb, arg0[slot], arg1[slot], arg2[slot]);
+                sb.append('\n');
+                index++;
+                tail = index;
+            }
+            long lost = dropped.getAndSet(0);
+            if (lost > 0) {
+                sb.append("[kernel-log] ").append(lost).append(" events dropped\n");
+            }
+            if (sb.length() == 0) {
+                return false;
+            }
+            out.print(sb);
+            out.flush();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+import java.util.Random;
+
+/**
+ * LotteryPolicy class.
+ * --------------------
+ * The original probabilistic scheduler: one RunQueue per priority class and
+ * a random draw deciding which class is served.
+ * - If realtime processes exist: 60% realtime, 30% interactive (if available),
+ *   10% background (if available).
+ * - If only interactive/background exist: 75% interactive, 25% background.
+ * - If only background exists: always background.
+ * Inside a class the lowest nice value is served first and most often, but
+ * in rounds, so every nice level of the class runs at least once per round
+ * (see RunQueue).
+ *
+ * Shares are only right on average and differ from run to run; use
+ * StridePolicy for exact, reproducible shares.
+ */
+public class LotteryPolicy implements SchedulingPolicy {
+    // Process queues by priority level.
+    // Within each class, processes are served by nice value in rounds (see RunQueue).
+    private final RunQueue realtimeProcess = new RunQueue(RunQueue.niceLevels);     // Highest-priority tasks
+    private final RunQueue interactiveProcess = new RunQueue(RunQueue.niceLevels);  // User-facing or interactive tasks
+    private final RunQueue backgroundProcess = new RunQueue(RunQueue.niceLevels);   // Low-priority or background tasks
+
+    // Random generator used for the draws
+    private final Random rand = new Random();
+
+    /**
+     * Returns the run queue that holds processes of the given priority.
+     * @param priority the priority class
+     * @return RunQueue the matching queue
+     */
+    private RunQueue QueueFor(OS.PriorityType priority) {
+        if (priority == OS.PriorityType.realtime) {
+            return realtimeProcess;
+        }
+        else if (priority == OS.PriorityType.interactive) {
+            return interactiveProcess;
+        }
+        return backgroundProcess;
+    }
+
+    @Override
+    public void Enqueue(PCB pcb) {
+        QueueFor(pcb.getPriority()).AddLast(pcb);
+        pcb.queuedOn = this;
+    }
+
+    @Override
+    public PCB PickNext() {
+        PCB next = null;
+
+        // 6/10 we will run a real-time process, 3/10 we will run an interactive process (if there is one) otherwise 1/10 we will run a background process.
+        if (!realtimeProcess.IsEmpty()) {
+            int r = rand.nextInt(10); // 0–9
+            if (r < 1 && !backgroundProcess.IsEmpty()) {
+                next = backgroundProcess.RemoveFirst();   // 10%
+            } else if (r >= 1 && r < 4 && !interactiveProcess.IsEmpty()) {
+                next = interactiveProcess.RemoveFirst();  // 30%
+            } else {
+                // default: realtime (covers r=4–9, or fallback if others empty)
+                next = realtimeProcess.RemoveFirst();
+            }
+        }
+        else if (!interactiveProcess.IsEmpty()) {
+            int r = rand.nextInt(4); // 0–3
+            if (r < 1 && !backgroundProcess.IsEmpty()) {
+                next = backgroundProcess.RemoveFirst();   // 25%
+            } else {
+                next = interactiveProcess.RemoveFirst();  // 75% or fallback
+            }
+        }
+        else if (!backgroundProcess.IsEmpty()) {
+            next = backgroundProcess.RemoveFirst();
+        }
+        if (next != null) {
+            next.queuedOn = null;
+        }
+        return next;
+    }
+
+    /**
+     * Gives away the most recently queued process of the highest-priority
+     * non-empty class, so this CPU keeps its oldest work.
+     */
+    @Override
+    public PCB StealOne() {
+        PCB stolen;
+        if (!realtimeProcess.IsEmpty()) {
+            stolen = realtimeProcess.RemoveLast();
+        } else if (!interactiveProcess.IsEmpty()) {
+            stolen = interactiveProcess.RemoveLast();
+        } else {
+            stolen = backgroundProcess.RemoveLast();
+        }
+        if (stolen != null) {
+            stolen.queuedOn = null;
+        }
+        return stolen;
+    }
+
+    @Override
+    public boolean Remove(PCB pcb) {
+        if (pcb.queuedOn != this) {
+            return false;
+        }
+        pcb.runQueue.Remove(pcb);
+        pcb.queuedOn = null;
+        return true;
+    }
+
+    @Override
+    public int Size() {
+        return realtimeProcess.Size() + interactiveProcess.Size() + backgroundProcess.Size();
+    }
+
+    @Override
+    public int Size(OS.PriorityType priority) {
+        return QueueFor(priority).Size();
+    }
+
+    @Override
+    public void AppendQueues(StringBuilder sb) {
+        for (OS.PriorityType p : OS.priorityTypes) {
+            sb.append(SchedulingPolicy.QueueLabel(p));
+            QueueFor(p).AppendPids(sb);
+            sb.append('\n');
+        }
+    }
+
+    @Override
+    public String Name() {
+        return "lottery";
+    }
+}
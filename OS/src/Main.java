@@ -1,6 +1,7 @@
 public class Main {
     // main that run the bug test
+    // boot options can be passed on the command line, e.g. "--cpus 4"
     public static void main(String[] args) {
-        OS.Startup(new Init());
+        OS.Startup(new Init(), BootOptions.Parse(args));
     }
 }
@@ -0,0 +1,158 @@
+import java.util.Arrays;
+
+/**
+ * Microbenchmark class.
+ * ---------------------
+ * A small harness for timing one operation from inside a userland process,
+ * modelled on JMH's "average time" mode.
+ *
+ * A benchmark subclass implements Operation(i) and, if it needs state that
+ * must not be timed, SetupIteration() / TearDownIteration(). Run() then:
+ *   1. executes the warm-up iterations (timed but discarded, so the JIT
+ *      compiles the kernel and hardware paths before measuring)
+ *   2. executes the measurement iterations, each one calling Operation()
+ *      opsPerIteration times between two System.nanoTime() reads
+ *   3. turns every measurement iteration into a score in nanoseconds per
+ *      operation and summarises them in a Result
+ *
+ * Setup and tear-down run around every iteration (warm-up and measurement)
+ * and are never part of the timed region.
+ *
+ * The harness itself allocates nothing while timing. Benchmarks are expected
+ * to draw any random input from a fixed seed so repeated runs do the same work.
+ */
+public abstract class Microbenchmark {
+    // Name printed in the results table, e.g. "memory.tlbHit"
+    public final String name;
+
+    // Number of Operation() calls timed together as one iteration
+    public final int opsPerIteration;
+
+    /**
+     * Constructor.
+     * @param name name printed in the results table
+     * @param opsPerIteration number of operations timed per iteration
+     * @return void
+     */
+    protected Microbenchmark(String name, int opsPerIteration) {
+        if (opsPerIteration <= 0) {
+            throw new IllegalArgumentException("opsPerIteration must be positive");
+        }
+        this.name = name;
+        this.opsPerIteration = opsPerIteration;
+    }
+
+    /**
+     * The operation being measured.
+     * @param i index of the call within the current iteration (0 .. opsPerIteration - 1)
+     * @return void
+     */
+    protected abstract void Operation(int i);
+
+    /**
+     * Prepares state for one iteration; not timed.
+     * @return void
+     */
+    protected void SetupIteration() {
+    }
+
+    /**
+     * Releases state after one iteration; not timed.
+     * @return void
+     */
+    protected void TearDownIteration() {
+    }
+
+    /**
+     * Runs the warm-up and measurement iterations.
+     * @param warmupIterations number of iterations whose scores are discarded
+     * @param measurementIterations number of iterations that make up the result
+     * @return Result the per-iteration scores of the measurement iterations
+     */
+    public final Result Run(int warmupIterations, int measurementIterations) {
+        for (int w = 0; w < warmupIterations; w++) {
+            Iteration();
+        }
+        double[] scores = new double[measurementIterations];
+        for (int m = 0; m < measurementIterations; m++) {
+            scores[m] = Iteration() / (double) opsPerIteration;
+        }
+        return new Result(name, scores);
+    }
+
+    /**
+     * Runs one iteration.
+     * @return long nanoseconds spent in the opsPerIteration operations
+     */
+    private long Iteration() {
+        SetupIteration();
+        long begin = System.nanoTime();
+        for (int i = 0; i < opsPerIteration; i++) {
+            Operation(i);
+        }
+        long elapsed = System.nanoTime() - begin;
+        TearDownIteration();
+        return elapsed;
+    }
+
+    /**
+     * Result class.
+     * Scores (nanoseconds per operation) of the measurement iterations of one benchmark.
+     */
+    public static class Result {
+        public final String name;
+        public final double[] scores;
+
+        public Result(String name, double[] scores) {
+            this.name = name;
+            this.scores = scores;
+        }
+
+        /** @return the mean score in nanoseconds per operation */
+        public double Mean() {
+            double total = 0;
+            for (double s : scores) total += s;
+            return scores.length == 0 ? 0 : total / scores.length;
+        }
+
+        /** @return the sample standard deviation of the scores */
+        public double StdDev() {
+            if (scores.length < 2) {
+                return 0;
+            }
+            double mean = Mean();
+            double sum = 0;
+            for (double s : scores) sum += (s - mean) * (s - mean);
+            return Math.sqrt(sum / (scores.length - 1));
+        }
+
+        /** @return the median score, which is the number to compare between runs */
+        public double Median() {
+            if (scores.length == 0) {
+                return 0;
+            }
+            double[] sorted = Arrays.copyOf(scores, scores.length);
+            Arrays.sort(sorted);
+            return sorted[sorted.length / 2];
+        }
+    }
+
+    /**
+     * Prints the header of the results table.
+     * @return void
+     */
+    public static void PrintHeader() {
+        System.out.printf("%-28s %5s %12s %12s %12s  %s%n", "Benchmark", "Cnt", "Median", "Mean", "StdDev", "Units");
+    }
+
+    /**
+     * Prints one result as a table row, in microseconds per operation.
+     * @param result the result to print
+     * @return void
+     */
+    public static void Print(Result result) {
+        System.out.printf("%-28s %5d %12.3f %12.3f %12.3f  us/op%n",
+                result.name, result.scores.length,
+                result.Median() / 1e3, result.Mean() / 1e3, result.StdDev() / 1e3);
+    }
+}
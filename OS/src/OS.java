@@ -1,5 +1,4 @@
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * OS class.
@@ -11,188 +10,411 @@ public class OS {
     // The single global instance of the Kernel (singleton pattern)
     private static Kernel ki; // The one and only one instance of the kernel.
 
-    // List of parameters passed to the current system call
-    public static List<Object> parameters = new ArrayList<>();
+    // Frame used for calls made from outside any process (e.g. Startup() on the main thread)
+    private static final SyscallFrame bootFrame = new SyscallFrame(null);
 
-    // Return value produced by the most recent system call
-    public static Object retVal;
+    public enum CallType {SwitchProcess,SendMessage, Open, Close, Read, Seek, Write,
+        GetMapping, CreateProcess, Sleep, GetPID, AllocateMemory, FreeMemory, WaitForMessage, Exit,
+        SubmitRing, GetSyscallStats, GetQueueDump, SetNice, TimerInterrupt,
+        SetQuantum, GetQuantum, SetDemotionThreshold, SetRealtimeParams, SleepUntilNextPeriod,
+        GetSchedulerMetrics, SleepNanos, GetProcessStats, GetAllProcessStats}
 
-    // The type of system call currently being executed
-    public static CallType currentCall;
+    public enum PriorityType {realtime, interactive, background}
 
-    public enum CallType {SwitchProcess,SendMessage, Open, Close, Read, Seek, Write,
-        GetMapping, CreateProcess, Sleep, GetPID, AllocateMemory, FreeMemory, GetPIDByName, WaitForMessage, Exit}
+    // Cached copy of PriorityType.values(), so priorities can travel through a frame as an int
+    static final PriorityType[] priorityTypes = PriorityType.values();
 
+    /**
+     * Returns the syscall frame of the calling process.
+     * Calls made from a thread that is not a userland process use the boot frame.
+     * @return SyscallFrame the frame to fill for this call
+     */
+    private static SyscallFrame CallerFrame() {
+        if (Process.current() instanceof UserlandProcess up && up.syscallFrame != null) {
+            return up.syscallFrame;
+        }
+        return bootFrame;
+    }
 
     /**
-     * Starts the kernel and handles process synchronization.
-     * If a process is currently running, it is stopped before the kernel runs.
-     * Otherwise, waits until the kernel sets a return value.
+     * Hands the frame to the kernel and blocks the caller until the call is done.
+     * If a process made the call, it is stopped until the kernel schedules it again.
+     * Otherwise, parks until the kernel marks the frame complete.
+     * @param frame the filled-in frame of the caller
      * @return void
      */
-    private static void startTheKernel() {
-        ki.start();
-
-        // start up phase: cur == null
-        PCB cur = ki.GetCurrentRunningProcess();
+    private static void startTheKernel(SyscallFrame frame) {
+        frame.refResult = null;
+        frame.complete = false;
+        ki.Submit(frame);
 
-        // if currently running a process, call stop on it in order to run the kernel
-        if (cur != null) {
-            cur.stop();
+        // if a process is making the call, stop it in order to run the kernel
+        if (frame.owner != null) {
+            frame.owner.stop();
         }
 
-        /*
-        If there is no current process running, create a loop in OS that calls Thread.sleep(10)
-            until the return value is set by the kernel.
-        */
+        // If the call does not come from a process, park until the kernel completes the frame
         else{
-            while (retVal == null) {
-                System.out.println("Waiting for current running...");
-                try {
-                    Thread.sleep(10);
-                } catch (InterruptedException e) {
-                    throw new RuntimeException(e);
-                }
+            frame.waiter = Thread.currentThread();
+            while (!frame.complete) {
+                LockSupport.park(frame);
             }
+            frame.waiter = null;
         }
     }
 
-    public enum PriorityType {realtime, interactive, background}
-
     public static void SwitchProcess() {
-        parameters.clear();
-        currentCall = CallType.SwitchProcess;
-        startTheKernel();
+        SyscallFrame frame = CallerFrame();
+        frame.call = CallType.SwitchProcess;
+        startTheKernel(frame);
     }
 
     public static void Startup(UserlandProcess init) {
-        ki = new Kernel();
+        Startup(init, new BootOptions());
+    }
+
+    /**
+     * Boots the kernel with the given machine configuration and starts init.
+     * @param init the first userland process
+     * @param options boot-time configuration (number of CPUs, ...)
+     * @return void
+     */
+    public static void Startup(UserlandProcess init, BootOptions options) {
+        options.Validate();
+        Process.executionBackend = ExecutionBackend.ForName(options.executionBackend);
+        KernelLog.SetLevel(KernelLog.ParseLevel(options.logLevel));
+        Hardware.ConfigureMemory(options.memorySize, options.pageSize);
+        Hardware.ConfigureCpus(options.cpuCount, options.tlbEntries, options.tlbWays);
+        ki = new Kernel(options);
         CreateProcess(init, PriorityType.interactive);
-        CreateProcess(new IdleProcess(), PriorityType.background);
     }
 
     public static int CreateProcess(UserlandProcess up, PriorityType priority) {
-        parameters.clear();
-        parameters.add(up);
-        parameters.add(priority);
-        currentCall = CallType.CreateProcess;
-        startTheKernel();
-        return (int) retVal;
+        SyscallFrame frame = CallerFrame();
+        frame.refArg = up;
+        frame.intArg0 = priority.ordinal();
+        frame.call = CallType.CreateProcess;
+        startTheKernel(frame);
+        return frame.intResult;
+    }
+
+    /**
+     * Sets the nice value of the calling process, its weight among the
+     * processes of its priority class (lower gets more CPU time). Takes
+     * effect the next time the process is queued.
+     * @param nice a value from -20 to 19
+     * @return boolean false if the value is out of range
+     */
+    public static boolean SetNice(int nice) {
+        SyscallFrame frame = CallerFrame();
+        frame.call = CallType.SetNice;
+        frame.intArg0 = nice;
+        startTheKernel(frame);
+        return frame.boolResult;
+    }
+
+    /**
+     * Changes the time slice of a priority class at runtime.
+     * @param priority the priority class
+     * @param millis the new quantum in milliseconds (1 .. 60000)
+     * @return boolean false if the value is out of range
+     */
+    public static boolean SetQuantum(PriorityType priority, int millis) {
+        SyscallFrame frame = CallerFrame();
+        frame.call = CallType.SetQuantum;
+        frame.intArg0 = priority.ordinal();
+        frame.intArg1 = millis;
+        startTheKernel(frame);
+        return frame.boolResult;
+    }
+
+    /**
+     * Returns the configured time slice of a priority class.
+     * @param priority the priority class
+     * @return int the quantum in milliseconds (before any adaptive scaling)
+     */
+    public static int GetQuantum(PriorityType priority) {
+        SyscallFrame frame = CallerFrame();
+        frame.call = CallType.GetQuantum;
+        frame.intArg0 = priority.ordinal();
+        startTheKernel(frame);
+        return frame.intResult;
+    }
+
+    /**
+     * Changes after how many consecutive timeouts a process of this class is demoted.
+     * @param priority the priority class
+     * @param timeouts the new threshold (0 = never demote)
+     * @return boolean false if the value is negative
+     */
+    public static boolean SetDemotionThreshold(PriorityType priority, int timeouts) {
+        SyscallFrame frame = CallerFrame();
+        frame.call = CallType.SetDemotionThreshold;
+        frame.intArg0 = priority.ordinal();
+        frame.intArg1 = timeouts;
+        startTheKernel(frame);
+        return frame.boolResult;
+    }
+
+    /**
+     * Moves the calling process into the deadline (EDF) class: every period
+     * it may run for the given runtime, which must be done by the deadline
+     * (relative to the start of the period). Deadline processes run before
+     * all other processes, earliest deadline first, and are stopped once
+     * their runtime is used up until their next period starts.
+     * Passing 0 for all three values leaves the deadline class.
+     * @param runtimeMicros CPU time per period, in microseconds
+     * @param deadlineMicros relative deadline, runtime <= deadline <= period
+     * @param periodMicros length of the period, in microseconds (at most 60 s)
+     * @return boolean false if the values are invalid or admission control rejected them
+     */
+    public static boolean SetRealtimeParams(int runtimeMicros, int deadlineMicros, int periodMicros) {
+        SyscallFrame frame = CallerFrame();
+        frame.call = CallType.SetRealtimeParams;
+        frame.intArg0 = runtimeMicros;
+        frame.intArg1 = deadlineMicros;
+        frame.intArg2 = periodMicros;
+        startTheKernel(frame);
+        return frame.boolResult;
+    }
+
+    /**
+     * Ends the current job of a deadline process and sleeps until its next
+     * period starts. Periods follow each other exactly, however late the
+     * process calls this, so the release times do not drift.
+     * @return int how many periods were lost: 0 if the job met its deadline,
+     *         more if it finished late; -1 if the caller is not a deadline process
+     */
+    public static int SleepUntilNextPeriod() {
+        SyscallFrame frame = CallerFrame();
+        frame.call = CallType.SleepUntilNextPeriod;
+        startTheKernel(frame);
+        return frame.intResult;
     }
 
+    /*
+    Fast-path calls: GetPID, GetPidByName, GetPriority and GetTimeMillis are answered on
+    the caller's thread from the caller's own PCB or from data the kernel publishes in Vdso,
+    so they never enter the kernel or involve the scheduler.
+    */
     public static int GetPID() {
-        parameters.clear();
-        currentCall = CallType.GetPID;
-        startTheKernel();
-        return (int) retVal;
+        SyscallFrame frame = CallerFrame();
+        // a process knows its own pid; only calls from outside any process need the kernel
+        if (frame.owner != null) {
+            return frame.owner.pid;
+        }
+        frame.call = CallType.GetPID;
+        startTheKernel(frame);
+        return frame.intResult;
+    }
+
+    /**
+     * Returns the caller's current scheduling priority (it changes when the process is demoted).
+     * @return PriorityType the priority, or null when called from outside any process
+     */
+    public static PriorityType GetPriority() {
+        SyscallFrame frame = CallerFrame();
+        return frame.owner == null ? null : frame.owner.getPriority();
+    }
+
+    /**
+     * Returns the wall-clock time, read on the caller's thread. Sleep runs on
+     * System.nanoTime() instead, so this clock is not the one wake-ups follow.
+     * @return long milliseconds since the epoch
+     */
+    public static long GetTimeMillis() {
+        return System.currentTimeMillis();
     }
 
     public static void Exit() {
-        parameters.clear();
-        currentCall = CallType.Exit;
-        startTheKernel();
+        SyscallFrame frame = CallerFrame();
+        frame.call = CallType.Exit;
+        startTheKernel(frame);
     }
 
     public static void Sleep(int mills) {
-        parameters.clear();
-        parameters.add(mills);
-        currentCall = CallType.Sleep;
-        startTheKernel();
+        SyscallFrame frame = CallerFrame();
+        frame.intArg0 = mills;
+        frame.call = CallType.Sleep;
+        startTheKernel(frame);
+    }
+
+    /**
+     * Sleeps for a duration given in nanoseconds. The wakeup never comes early;
+     * it may come up to the configured timer slack (plus one wheel tick) late,
+     * so that sleepers ending close together are woken by one interrupt.
+     * @param nanos how long to sleep
+     * @return void
+     */
+    public static void SleepNanos(long nanos) {
+        SyscallFrame frame = CallerFrame();
+        frame.longArg0 = nanos;
+        frame.call = CallType.SleepNanos;
+        startTheKernel(frame);
     }
 
     // Devices
     public static int Open(String s) {
-        parameters.clear();
-        parameters.add(s);
-        currentCall = CallType.Open;
-        startTheKernel();
-        return (int) retVal;
+        SyscallFrame frame = CallerFrame();
+        frame.refArg = s;
+        frame.call = CallType.Open;
+        startTheKernel(frame);
+        return frame.intResult;
     }
 
     public static void Close(int id) {
-        parameters.clear();
-        parameters.add(id);
-        currentCall = CallType.Close;
-        startTheKernel();
+        SyscallFrame frame = CallerFrame();
+        frame.intArg0 = id;
+        frame.call = CallType.Close;
+        startTheKernel(frame);
     }
 
     public static byte[] Read(int id, int size) {
-        parameters.clear();
-        parameters.add(id);
-        parameters.add(size);
-        currentCall = CallType.Read;
-        startTheKernel();
-        return (byte[]) retVal;
+        SyscallFrame frame = CallerFrame();
+        frame.intArg0 = id;
+        frame.intArg1 = size;
+        frame.call = CallType.Read;
+        startTheKernel(frame);
+        return (byte[]) frame.refResult;
     }
 
     public static void Seek(int id, int to) {
-        parameters.clear();
-        parameters.add(id);
-        parameters.add(to);
-        currentCall = CallType.Seek;
-        startTheKernel();
+        SyscallFrame frame = CallerFrame();
+        frame.intArg0 = id;
+        frame.intArg1 = to;
+        frame.call = CallType.Seek;
+        startTheKernel(frame);
     }
 
     public static int Write(int id, byte[] data) {
-        parameters.clear();
-        parameters.add(id);
-        parameters.add(data);
-        currentCall = CallType.Write;
-        startTheKernel();
-        return (int) retVal;
+        SyscallFrame frame = CallerFrame();
+        frame.intArg0 = id;
+        frame.refArg = data;
+        frame.call = CallType.Write;
+        startTheKernel(frame);
+        return frame.intResult;
+    }
+
+    /**
+     * Hands every operation queued in the ring to the kernel in a single kernel entry.
+     * Results are available in ring.results / ring.refResults when this returns.
+     * @param ring the batch of device operations to execute
+     * @return int the number of operations the kernel executed
+     */
+    public static int SubmitRing(SyscallRing ring) {
+        SyscallFrame frame = CallerFrame();
+        frame.refArg = ring;
+        frame.call = CallType.SubmitRing;
+        startTheKernel(frame);
+        return frame.intResult;
+    }
+
+    /**
+     * Returns the scheduler's demotion/promotion/boost counters and the current
+     * number of processes per priority class.
+     * @return SchedulerMetrics snapshot taken by the kernel
+     */
+    public static SchedulerMetrics GetSchedulerMetrics() {
+        SyscallFrame frame = CallerFrame();
+        frame.call = CallType.GetSchedulerMetrics;
+        startTheKernel(frame);
+        return (SchedulerMetrics) frame.refResult;
+    }
+
+    /**
+     * Returns the scheduler accounting of one process.
+     * @param pid the process id
+     * @return ProcessStats snapshot taken by the kernel, or null if no such process exists
+     */
+    public static ProcessStats GetProcessStats(int pid) {
+        SyscallFrame frame = CallerFrame();
+        frame.intArg0 = pid;
+        frame.call = CallType.GetProcessStats;
+        startTheKernel(frame);
+        return (ProcessStats) frame.refResult;
+    }
+
+    /**
+     * Returns the scheduler accounting of every live process, taken in one kernel call.
+     * @return ProcessStats[] one snapshot per process, ordered by pid
+     */
+    public static ProcessStats[] GetAllProcessStats() {
+        SyscallFrame frame = CallerFrame();
+        frame.call = CallType.GetAllProcessStats;
+        startTheKernel(frame);
+        return (ProcessStats[]) frame.refResult;
+    }
+
+    /**
+     * Returns a copy of the kernel's per-call-type counters and latency histograms.
+     * @return SyscallStats snapshot taken by the kernel
+     */
+    public static SyscallStats GetSyscallStats() {
+        SyscallFrame frame = CallerFrame();
+        frame.call = CallType.GetSyscallStats;
+        startTheKernel(frame);
+        return (SyscallStats) frame.refResult;
+    }
+
+    /**
+     * Returns a description of every run queue, the sleeping queue and the waiting map,
+     * taken by the kernel at the time of the call.
+     * @return String the queue dump
+     */
+    public static String GetQueueDump() {
+        SyscallFrame frame = CallerFrame();
+        frame.call = CallType.GetQueueDump;
+        startTheKernel(frame);
+        return (String) frame.refResult;
     }
 
     // Messages
     public static void SendMessage(KernelMessage km) {
-        parameters.clear();
-        parameters.add(km);
-        currentCall = CallType.SendMessage;
-        startTheKernel();
+        SyscallFrame frame = CallerFrame();
+        frame.refArg = km;
+        frame.call = CallType.SendMessage;
+        startTheKernel(frame);
     }
 
     public static KernelMessage WaitForMessage() {
-        parameters.clear();
-        currentCall = CallType.WaitForMessage;
-        startTheKernel();
-        return (KernelMessage)retVal;
+        SyscallFrame frame = CallerFrame();
+        frame.call = CallType.WaitForMessage;
+        startTheKernel(frame);
+        return (KernelMessage) frame.refResult;
     }
 
     public static int GetPidByName(String name) {
-        parameters.clear();
-        parameters.add(name);
-        currentCall = CallType.GetPIDByName;
-        startTheKernel();
-        return (int)retVal;
+        return Vdso.PidByName(name);
     }
 
     // Memory
     public static void GetMapping(int virtualPage) {
-        parameters.clear();
-        parameters.add(virtualPage);
-        currentCall = CallType.GetMapping;
-        startTheKernel();
+        SyscallFrame frame = CallerFrame();
+        frame.intArg0 = virtualPage;
+        frame.call = CallType.GetMapping;
+        startTheKernel(frame);
     }
 
     public static int AllocateMemory(int size ) {
-        if (size % 1024 != 0){
+        if (size % Hardware.sizeOfPage != 0){
             throw new RuntimeException("AllocateMemory Error");
         }
-        parameters.clear();
-        parameters.add(size);
-        currentCall = CallType.AllocateMemory;
-        startTheKernel();
-        return (int)retVal; // Change this
+        SyscallFrame frame = CallerFrame();
+        frame.intArg0 = size;
+        frame.call = CallType.AllocateMemory;
+        startTheKernel(frame);
+        return frame.intResult;
     }
 
     public static boolean FreeMemory(int pointer, int size) {
-        if (size % 1024 != 0 || pointer % 1024 != 0){
+        if (size % Hardware.sizeOfPage != 0 || pointer % Hardware.sizeOfPage != 0){
             throw new RuntimeException("FreeMemory Error");
         }
-        parameters.clear();
-        parameters.add(pointer);
-        parameters.add(size);
-        currentCall = CallType.FreeMemory;
-        startTheKernel();
-        return (boolean)retVal;
+        SyscallFrame frame = CallerFrame();
+        frame.intArg0 = pointer;
+        frame.intArg1 = size;
+        frame.call = CallType.FreeMemory;
+        startTheKernel(frame);
+        return frame.boolResult;
     }
 }
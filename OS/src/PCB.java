@@ -12,30 +12,131 @@ import java.util.LinkedList;
  * - Timeout information (for demotion)
  * - VFS handle table
  * - Message queue for inter-process communication
+ * - Syscall frame used to pass arguments and results to the kernel
  */
 public class PCB { // Process Control Block
     // Static counter used to assign unique process IDs (PIDs)
     private static int nextPid = 1;
+    // Virtual pages per process, whatever the page size (tests size their allocations from it)
+    public static final int virtualPages = 100;
 
     // Unique process identifier for this instance
     public int pid;
 
     // Scheduling priority assigned to this process
-    private OS.PriorityType priority;
+    // (volatile: the process itself reads it without entering the kernel)
+    private volatile OS.PriorityType priority;
 
     // Reference to the user-level process object associated with this kernel process
     private final UserlandProcess process;
 
-    // System time (in milliseconds) when this process should wake up
+    // System.nanoTime() at which this process should wake up
     // after a sleep or delay, and return to the ready queue
     public long wakeupTime;
 
+    // Intrusive timing wheel links, owned by TimingWheel (timerLevel == -1 when not sleeping)
+    PCB timerPrev;
+    PCB timerNext;
+    int timerLevel = -1;
+    int timerSlot;
+
     // Counter for how many times this process has reached a timeout condition
     public int timeoutFrequency = 0;
 
+    // Priority class the process was created in; promotions never go above it
+    public final OS.PriorityType basePriority;
+
+    // Voluntary blocks (Sleep, WaitForMessage, device I/O) since the last demotion or promotion
+    public int voluntaryBlocks = 0;
+
+    // Class held before an aging boost, restored when the process leaves the CPU (null = not boosted)
+    OS.PriorityType boostedFrom;
+
+    // System.currentTimeMillis() when the process last became runnable (for aging)
+    long runnableSince;
+
+    // How often this process was demoted, promoted and boosted
+    public int demotions = 0;
+    public int promotions = 0;
+    public int boosts = 0;
+
+    // Accounting (see ProcessStats): time on a CPU, of which in the kernel, and waiting in a run queue
+    long cpuNanos;
+    long kernelNanos;
+    long waitNanos;
+
+    // System.nanoTime() when the process last entered a run queue (for waitNanos)
+    long readyNanos;
+
+    // Address-space identifier tagging this process's TLB entries, valid while
+    // asidGeneration is the AsidAllocator's current generation
+    int asid;
+    long asidGeneration = 0;
+
+    // Times the process blocked, and times it was preempted while still runnable
+    public long voluntarySwitches = 0;
+    public long involuntarySwitches = 0;
+
+    // Consecutive time slices used up without yielding (adaptive quantum; not reset by demotion)
+    public int batchRuns = 0;
+
     // Indicates whether the process is currently in a timeout (sleeping or waiting) state
     public boolean timeout = false;
 
+    // Index of the CPU this process runs on, or whose run queue it waits in
+    public int cpuId = 0;
+
+    // Nice value (-20 .. 19): weight inside the priority class, lower gets more CPU
+    public int nice = 0;
+
+    // Intrusive run queue links, owned by RunQueue (runQueue == null when not queued)
+    PCB runPrev;
+    PCB runNext;
+    int runLevel;
+    int runArray;
+    // Times it may still be served this round (-1 until first queued)
+    int runTurns = -1;
+    RunQueue runQueue;
+
+    // Policy whose run queue holds this process (null while running, sleeping or waiting)
+    SchedulingPolicy queuedOn;
+
+    // StridePolicy state: pass value, and the class it was computed in (-1 = none yet)
+    long stridePass;
+    int strideClass = -1;
+
+    // FairPolicy state: weighted virtual runtime in ns, and the policy it is measured on
+    long vruntime;
+    SchedulingPolicy fairOwner;
+
+    // Deadline (EDF) class parameters in ns; dlRuntime == 0 for processes outside the class
+    long dlRuntime;
+    long dlDeadline;
+    long dlPeriod;
+
+    // Share of a CPU reserved at admission, in millionths (dlRuntime / dlDeadline)
+    long dlBandwidth;
+
+    // Current job: release time, absolute deadline and runtime budget left (System.nanoTime() based)
+    long dlPeriodStart;
+    long dlAbsoluteDeadline;
+    long dlRemaining;
+
+    // Release time of the current job; unlike dlPeriodStart it does not move when the budget is replenished
+    long dlJobRelease;
+
+    // True while sleeping in SleepUntilNextPeriod: the next job already has its budget and deadline
+    boolean dlWaitingForRelease;
+
+    // Number of jobs that finished after their deadline
+    public int dlMisses = 0;
+
+    // System.nanoTime() when this process was last given a CPU
+    long dispatchNanos;
+
+    // True while this process is in the scheduler's sleeping queue
+    boolean sleeping = false;
+
     // Array of Virtual File System (VFS) handles associated with this process
     public int[] vfsID = new int[10];
 
@@ -46,9 +147,12 @@ public class PCB { // Process Control Block
     // Stores incoming KernelMessage objects sent by other processes
     public LinkedList<KernelMessage> messageQueue = new LinkedList<>();
 
+    // Preallocated argument/result block used for every system call this process makes
+    public final SyscallFrame syscallFrame = new SyscallFrame(this);
+
     /*
     Virtual memory mapping table for this process.
-    Each index represents a virtual page number (0–99).
+    Each index represents a virtual page number (0 to virtualPages - 1).
     The value stored is a VirtualToPhysicalMapping object containing:
         - physicalPage : which physical frame the page occupies (-1 if not in RAM)
         - diskPage     : which swap-file page stores its data (-1 if never written)
@@ -70,9 +174,11 @@ public class PCB { // Process Control Block
         nextPid++;
         this.process = up;
         this.priority = priority;
+        this.basePriority = priority;
         this.nameOfProcess = up.getClass().getSimpleName();
+        up.syscallFrame = syscallFrame;                     // let the OS wrappers find our frame
         Arrays.fill(vfsID, -1);                             // Initialize all VFS handles to -1 (unused)
-        virtualMemoryMappingTable = new VirtualToPhysicalMapping[100];
+        virtualMemoryMappingTable = new VirtualToPhysicalMapping[virtualPages];
         Arrays.fill(virtualMemoryMappingTable, null);         // Initialized TLB entries to -1
     }
 
@@ -90,6 +196,14 @@ public class PCB { // Process Control Block
         return priority;
     }
 
+    /**
+     * Returns whether this process is in the deadline (EDF) class.
+     * @return boolean true once OS.SetRealtimeParams() admitted it
+     */
+    boolean isDeadlineTask() {
+        return dlRuntime > 0;
+    }
+
     /**
      * Requests the process to stop at the next safe checkpoint.
      * @return void
@@ -100,19 +214,11 @@ public class PCB { // Process Control Block
 
     /**
      * Stops the userland process completely.
-     * Waits in a loop until the process confirms it is stopped.
+     * Blocks on the process gate until the kernel hands the CPU back with start().
      * @return void
      */
     public void stop() {
-        /* calls user land process’ stop. Loops with Thread.sleep() until the up.isStopped() is true.  */
         process.stop();
-        while(!process.isStopped()) {
-            try {
-                Thread.sleep(10);
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
-            }
-        }
     }
 
     /**
@@ -128,6 +234,8 @@ public class PCB { // Process Control Block
      * @return void
      */
     void start() {
+        // tell the process which CPU (and therefore which TLB) it runs on
+        process.cpuId = cpuId;
         // calls userlandprocess’ start()
         process.start();
     }
@@ -142,9 +250,8 @@ public class PCB { // Process Control Block
     }
 
     /**
-     * Sets the absolute system time (in milliseconds) when this process
-     * should wake up from sleep.
-     * @param newWakeupTime the wake-up time in milliseconds since epoch
+     * Sets the System.nanoTime() instant when this process should wake up from sleep.
+     * @param newWakeupTime the wake-up time in System.nanoTime() nanoseconds
      * @return void
      */
     public void setWakeupTime(long newWakeupTime) {
@@ -152,9 +259,8 @@ public class PCB { // Process Control Block
     }
 
     /**
-     * Returns the absolute system time (in milliseconds) when this process
-     * is scheduled to wake up.
-     * @return long the wake-up time in milliseconds since epoch
+     * Returns the System.nanoTime() instant when this process is scheduled to wake up.
+     * @return long the wake-up time in System.nanoTime() nanoseconds
      */
     public long getWakeupTime() {
         return wakeupTime;
@@ -0,0 +1,35 @@
+/**
+ * PlatformThreadBackend Class
+ * ---------------------------
+ * Runs every process on its own platform (OS) thread.
+ * With the default stack size this is the classic behavior. A reduced stack
+ * size lets many more processes exist at once when virtual threads are not
+ * available, at the cost of a shallower call depth inside each process.
+ */
+public class PlatformThreadBackend implements ExecutionBackend {
+    // Stack size used by the "small-stack" backend (bytes)
+    public static final long smallStackSize = 128 * 1024;
+
+    // Requested stack size in bytes; 0 means the JVM default
+    private final long stackSize;
+
+    /**
+     * Constructor.
+     * @param stackSize stack size for each process thread in bytes, or 0 for the JVM default
+     * @return void
+     */
+    public PlatformThreadBackend(long stackSize) {
+        this.stackSize = stackSize;
+    }
+
+    @Override
+    public void Start(Runnable body) {
+        Thread thread = new Thread(null, body, "process", stackSize);
+        thread.start();
+    }
+
+    @Override
+    public String Name() {
+        return stackSize == 0 ? "platform" : "small-stack";
+    }
+}
@@ -1,4 +1,5 @@
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Base class for all processes (kernel- and user-land).
@@ -10,10 +11,24 @@ public abstract class Process implements Runnable{
     private Boolean finsihed = false;
     private Semaphore semaphore = new Semaphore(0);
 
+    // Simulated CPU this process was last started on (selects the TLB used by Hardware)
+    volatile int cpuId = 0;
+
+    // How long stop() spins on the gate before blocking. The kernel usually hands the
+    // CPU back within a few microseconds, and waking a parked thread costs more than that.
+    // Spinning on a single host CPU would only delay the thread we are waiting for.
+    private static final long spinNanos =
+            Runtime.getRuntime().availableProcessors() > 1 ? TimeUnit.MICROSECONDS.toNanos(20) : 0;
+
+    // Kind of thread every new process runs on; chosen at boot by OS.Startup()
+    static ExecutionBackend executionBackend = new PlatformThreadBackend(0);
+
+    // The process whose thread is currently executing (null on the boot thread)
+    private static final ThreadLocal<Process> current = new ThreadLocal<>();
+
     public Process() {
-        //members
-        Thread thread = new Thread(this);
-        thread.start();
+        // run this process on a thread provided by the configured backend
+        executionBackend.Start(this);
     }
 
     /** Request the process to yield at the next cooperate() check (timer “interrupt”). */
@@ -23,6 +38,11 @@ public abstract class Process implements Runnable{
 
     public abstract void main();
 
+    /** @return the process running on the calling thread, or null if called from outside any process. */
+    public static Process current() {
+        return current.get();
+    }
+
     /** @return true if this process is currently blocked (not allowed to run). */
     public boolean isStopped() {
         return this.semaphore.availablePermits() == 0;
@@ -38,8 +58,21 @@ public abstract class Process implements Runnable{
         this.semaphore.release();
     }
 
-    /** Block/suspend this process (consume all permits until 0). */
+    /**
+     * Block/suspend this process (consume all permits until 0).
+     * Spins on the gate for a short while first, so that a quick handoff from the
+     * other side does not pay for parking and unparking this thread.
+     */
     public void stop() {
+        if (spinNanos > 0) {
+            long deadline = System.nanoTime() + spinNanos;
+            do {
+                if (this.semaphore.tryAcquire()) {
+                    return;
+                }
+                Thread.onSpinWait();
+            } while (System.nanoTime() < deadline);
+        }
         this.semaphore.acquireUninterruptibly();
     }
 
@@ -48,9 +81,13 @@ public abstract class Process implements Runnable{
      * NEVER call run() directly; call start() to schedule the process.
      */
     public void run() { // called by the JVM thread system — NEVER CALL THIS YOURSELF
+        current.set(this);                  // remember which process owns this thread
         semaphore.acquireUninterruptibly(); // block & waiting for permission
         main();                             // execute the userland process main()
         finsihed = true;                    // mark process as done
+        if (this instanceof UserlandProcess) {
+            OS.Exit();                      // returning from main() gives the CPU back, like exit()
+        }
     }
 
     /**
@@ -0,0 +1,69 @@
+/**
+ * ProcessStats class.
+ * -------------------
+ * Scheduler accounting of one process, as copied by the kernel for
+ * OS.GetProcessStats(pid) and OS.GetAllProcessStats():
+ *   - user time: time on a CPU outside the kernel
+ *   - kernel time: time the kernel spent handling this process's system calls
+ *   - wait time: time spent runnable in a run queue, waiting for a CPU
+ *   - voluntary switches: the process blocked and left its CPU (Sleep, a
+ *     WaitForMessage with no message yet, SleepUntilNextPeriod); system calls
+ *     that return without leaving the CPU, such as device I/O, do not count
+ *   - involuntary switches: the process was preempted while still runnable
+ *     (quantum expired, deadline budget used up, a more urgent process arrived)
+ *   - demotions, promotions and aging boosts between priority classes
+ *
+ * Times are in nanoseconds and include the interval in progress when the
+ * snapshot was taken (a running process's current run, a queued process's
+ * current wait).
+ */
+public class ProcessStats {
+    public int pid;
+    public String name;
+    public OS.PriorityType priority;
+    public OS.PriorityType basePriority;
+    public int cpuId;
+    public String state;            // running, runnable, sleeping or waiting
+
+    public long userNanos;
+    public long kernelNanos;
+    public long waitNanos;
+    public long voluntarySwitches;
+    public long involuntarySwitches;
+    public int demotions;
+    public int promotions;
+    public int boosts;
+
+    /**
+     * Formats the column headers matching Line().
+     * @return String the header line
+     */
+    public static String Header() {
+        return String.format("%5s %-24s %-11s %-11s %3s %-8s %10s %10s %10s %8s %8s %5s %5s %5s%n",
+                "PID", "NAME", "CLASS", "BASE", "CPU", "STATE", "USER ms", "KERNEL ms", "WAIT ms",
+                "VOL", "INVOL", "DEM", "PRO", "BST");
+    }
+
+    /**
+     * Formats these statistics as one table row.
+     * @return String the row, ending in a newline
+     */
+    public String Line() {
+        return String.format("%5d %-24s %-11s %-11s %3d %-8s %10.1f %10.1f %10.1f %8d %8d %5d %5d %5d%n",
+                pid, name, priority, basePriority, cpuId, state, userNanos / 1e6, kernelNanos / 1e6,
+                waitNanos / 1e6, voluntarySwitches, involuntarySwitches, demotions, promotions, boosts);
+    }
+
+    /**
+     * Formats a bulk snapshot as a table, one row per process.
+     * @param all the statistics returned by OS.GetAllProcessStats()
+     * @return String the table
+     */
+    public static String Table(ProcessStats[] all) {
+        StringBuilder sb = new StringBuilder(Header());
+        for (ProcessStats s : all) {
+            sb.append(s.Line());
+        }
+        return sb.toString();
+    }
+}
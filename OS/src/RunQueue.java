@@ -0,0 +1,209 @@
+/**
+ * RunQueue class.
+ * ---------------
+ * A multilevel run queue of PCBs built on links stored inside the PCBs
+ * themselves (PCB.runPrev / PCB.runNext), so queueing never allocates.
+ *
+ * The queue has two arrays of levels, active and expired, each with one
+ * FIFO list per level and a bitmap with one bit per non-empty level.
+ * Level 0 of the active array is served first. Every time a PCB is served
+ * it uses one of its turns; once they are used up it is queued on the
+ * expired array with fresh turns. When the active array empties, the two
+ * arrays swap and a new round starts. So a better level runs first and
+ * more often, but it cannot starve a worse one for more than a round.
+ * Turns per round follow the nice weights StridePolicy and FairPolicy use
+ * (StridePolicy.Weight): one per 128 of weight, at least one, which gives
+ * 8 turns at nice 0, 74 at nice -10 and 1 at nice 10.
+ *
+ * Every operation is O(1):
+ *   - AddLast(pcb)      appends at the level given by the PCB's nice value
+ *   - RemoveFirst()     takes the oldest PCB of the best non-empty active level
+ *   - RemoveLast()      takes the newest PCB of the worst non-empty level,
+ *                       expired array first
+ *   - Remove(pcb)       unlinks a PCB from wherever it is in the queue
+ *
+ * The default of 40 levels matches nice values -20 (level 0) to 19 (level 39);
+ * a PCB with the default nice value 0 sits on level 20.
+ * A PCB can be in at most one RunQueue at a time (PCB.runQueue).
+ */
+public class RunQueue {
+    // Number of levels used for nice values -20 .. 19
+    public static final int niceLevels = 40;
+
+    // Nice value that maps to level 0
+    public static final int minNice = -20;
+    public static final int maxNice = niceLevels + minNice - 1;
+
+    // Weight that buys one turn per round
+    private static final int weightPerTurn = 128;
+
+    // First and last PCB of every level of both arrays (null when the level is empty)
+    private final PCB[][] heads;
+    private final PCB[][] tails;
+
+    // Bit i of bitmaps[a] is set when level i of array a is not empty
+    private final long[] bitmaps = new long[2];
+
+    // Index of the active array; the other one is expired
+    private int active = 0;
+
+    private int size = 0;
+
+    /**
+     * Constructor.
+     * @param levels number of priority levels (1 to 64)
+     * @return void
+     */
+    public RunQueue(int levels) {
+        if (levels < 1 || levels > Long.SIZE) {
+            throw new IllegalArgumentException("A run queue supports 1 to 64 levels");
+        }
+        heads = new PCB[2][levels];
+        tails = new PCB[2][levels];
+    }
+
+    /**
+     * Returns the level a PCB is queued on, derived from its nice value.
+     * @param pcb the process
+     * @return int the level (clamped to the levels of this queue)
+     */
+    private int LevelOf(PCB pcb) {
+        int level = pcb.nice - minNice;
+        return Math.max(0, Math.min(level, heads[0].length - 1));
+    }
+
+    /**
+     * Returns how many times a PCB is served per round.
+     * @param pcb the process
+     * @return int the turns (at least 1)
+     */
+    private static int TurnsOf(PCB pcb) {
+        return Math.max(1, StridePolicy.Weight(pcb.nice) / weightPerTurn);
+    }
+
+    /**
+     * Appends a PCB at the tail of its level: on the active array while it
+     * has turns left this round, otherwise on the expired array with fresh turns.
+     * @param pcb the process to queue (must not be in any run queue)
+     * @return void
+     * @throws IllegalStateException if the PCB is already queued
+     */
+    public void AddLast(PCB pcb) {
+        if (pcb.runQueue != null) {
+            throw new IllegalStateException("Process " + pcb.pid + " is already in a run queue");
+        }
+        int level = LevelOf(pcb);
+        int array = active;
+        if (pcb.runTurns <= 0) {
+            // a new process starts in the current round, a spent one waits for the next
+            if (pcb.runTurns == 0) {
+                array = 1 - active;
+            }
+            pcb.runTurns = TurnsOf(pcb);
+        }
+        pcb.runLevel = level;
+        pcb.runArray = array;
+        pcb.runQueue = this;
+        pcb.runNext = null;
+        pcb.runPrev = tails[array][level];
+        if (tails[array][level] == null) {
+            heads[array][level] = pcb;
+            bitmaps[array] |= 1L << level;
+        } else {
+            tails[array][level].runNext = pcb;
+        }
+        tails[array][level] = pcb;
+        size++;
+    }
+
+    /**
+     * Removes and returns the oldest PCB of the highest-priority non-empty
+     * active level, starting a new round first if the active array is empty.
+     * The PCB uses one of its turns.
+     * @return PCB the dequeued process, or null if the queue is empty
+     */
+    public PCB RemoveFirst() {
+        if (size == 0) {
+            return null;
+        }
+        if (bitmaps[active] == 0) {
+            active = 1 - active;
+        }
+        PCB pcb = heads[active][Long.numberOfTrailingZeros(bitmaps[active])];
+        Remove(pcb);
+        pcb.runTurns--;
+        return pcb;
+    }
+
+    /**
+     * Removes and returns the newest PCB of the lowest-priority non-empty level,
+     * taking from the expired array first.
+     * Used for work stealing, so the victim keeps its best and oldest work.
+     * @return PCB the dequeued process, or null if the queue is empty
+     */
+    public PCB RemoveLast() {
+        if (size == 0) {
+            return null;
+        }
+        int array = bitmaps[1 - active] != 0 ? 1 - active : active;
+        PCB pcb = tails[array][63 - Long.numberOfLeadingZeros(bitmaps[array])];
+        Remove(pcb);
+        return pcb;
+    }
+
+    /**
+     * Unlinks a PCB from this queue.
+     * @param pcb the process to remove
+     * @return boolean true if the PCB was in this queue
+     */
+    public boolean Remove(PCB pcb) {
+        if (pcb.runQueue != this) {
+            return false;
+        }
+        int level = pcb.runLevel;
+        int array = pcb.runArray;
+        if (pcb.runPrev == null) {
+            heads[array][level] = pcb.runNext;
+        } else {
+            pcb.runPrev.runNext = pcb.runNext;
+        }
+        if (pcb.runNext == null) {
+            tails[array][level] = pcb.runPrev;
+        } else {
+            pcb.runNext.runPrev = pcb.runPrev;
+        }
+        if (heads[array][level] == null) {
+            bitmaps[array] &= ~(1L << level);
+        }
+        pcb.runPrev = null;
+        pcb.runNext = null;
+        pcb.runQueue = null;
+        size--;
+        return true;
+    }
+
+    /** @return true if no PCB is queued */
+    public boolean IsEmpty() {
+        return size == 0;
+    }
+
+    /** @return the number of queued PCBs */
+    public int Size() {
+        return size;
+    }
+
+    /**
+     * Appends the pids of all queued PCBs, in service order, separated by spaces.
+     * @param sb the builder to append to
+     * @return void
+     */
+    public void AppendPids(StringBuilder sb) {
+        for (int array : new int[] {active, 1 - active}) {
+            for (long bits = bitmaps[array]; bits != 0; bits &= bits - 1) {
+                for (PCB p = heads[array][Long.numberOfTrailingZeros(bits)]; p != null; p = p.runNext) {
+                    sb.append(p.pid).append(' ');
+                }
+            }
+        }
+    }
+}
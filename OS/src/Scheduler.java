@@ -1,37 +1,84 @@
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Scheduler class.
  * ----------------
  * Manages process scheduling, priority queues, sleeping processes,
- * waiting message processes, and periodic quantum expiration via a timer.
+ * waiting message processes, and quantum expiration via a timer.
+ * Sleeping processes live in a hierarchical timing wheel on System.nanoTime();
+ * a timer thread interrupts the kernel when the earliest of them is due.
  * Handles switching, demotion, sleeping, and probabilistic scheduling.
+ *
+ * With more than one simulated CPU, every Cpu owns its running process and
+ * its run queues. The kernel serves one CPU at a time (the one whose process
+ * made the system call) through the "cpu" field; a CPU whose own queues are
+ * empty steals work from the most loaded CPU.
  */
 public class Scheduler {
-    // Hardware timer simulation used to trigger periodic interrupts.
-    // The timer fires at regular intervals to signal quantum expiration.
+    // Hardware timer simulation used to trigger quantum expiration.
+    // Every CPU arms a one-shot deadline for the time slice of its running process.
     private Timer timer = new Timer(true);
 
-    // Reference to the process currently executing on the CPU.
-    public PCB currentRunning;
+    // Time slice length in milliseconds, per OS.PriorityType ordinal
+    private final int[] quantumMillis;
 
-    // Random generator used for scheduling or test operations (e.g., randomized replacement).
-    private final Random rand = new Random();
+    // Consecutive timeouts after which a process drops one priority class (0 = never), per ordinal
+    private final int[] demotionThreshold;
 
-    // Priority queue that holds sleeping processes, ordered by their wake-up time.
-    // The process with the earliest wake-up time is placed at the head of the queue.
-    private final PriorityQueue<PCB> sleepingQueue = new PriorityQueue<>(Comparator.comparingLong(pcb -> pcb.wakeupTime));
+    // Adaptive mode bounds: quanta never shrink below minQuantum nor grow past maxQuantumFactor x base
+    private static final int minQuantumMillis = 10;
+    private static final int maxQuantumFactor = 4;
 
-    // Process queues by priority level.
-    // Each queue represents a scheduling category.
-    private final LinkedList<PCB> realtimeProcess = new LinkedList<>();     // Highest-priority tasks
-    private final LinkedList<PCB> interactiveProcess = new LinkedList<>();  // User-facing or interactive tasks
-    private final LinkedList<PCB> backgroundProcess = new LinkedList<>();   // Low-priority or background tasks
+    // Adaptive mode: scale the quantum with the number of runnable processes and batch behaviour
+    private final boolean adaptiveQuantum;
+
+    // Tickless mode: each CPU arms its quantum only when another process is waiting
+    // for it, and the earliest sleeper arms its own wakeup
+    private final boolean tickless;
+
+    // Voluntary blocks that move a demoted process one class back up (0 = never)
+    private final int promoteAfter;
+
+    // Aging: runnable processes waiting longer than this are boosted one class (0 = off)
+    private final int boostAfterMillis;
+    private long nextAgingScan = 0;
+
+    // Demotion / promotion / boost counters
+    public final SchedulerMetrics metrics = new SchedulerMetrics();
+
+    // Share of each CPU deadline processes may reserve, in millionths
+    private final long deadlineCapacity;
+
+    // Resolution of the sleeper timing wheel (about 65 us) and its number of levels
+    // (64^5 ticks, about 2.3 years)
+    private static final long wheelTickNanos = 1L << 16;
+    private static final int wheelLevels = 5;
+
+    // Sleep deadlines are rounded up to a multiple of this, so close wakeups share one interrupt
+    private final long timerSlackNanos;
+
+    // Timer thread that raises a kernel interrupt when wakeupArmedFor (System.nanoTime()) is reached
+    private final AtomicLong wakeupArmedFor = new AtomicLong(Long.MAX_VALUE);
+    private Thread wakeupThread;     // null until StartWakeupThread()
+
+    // All simulated CPUs
+    public final Cpu[] cpus;
+
+    // The CPU the kernel is currently serving; its currentRunning is the calling process.
+    public Cpu cpu;
+
+    // Sleeping processes, keyed on their System.nanoTime() wake-up time (O(1) insert and cancel)
+    private final TimingWheel sleepers = new TimingWheel(wheelTickNanos, wheelLevels);
 
     // Map of processes that are currently waiting for messages or synchronization events.
     // The key is the PID of the waiting process, and the value is its PCB.
     private final HashMap<Integer, PCB> waitingProcess = new HashMap<>();
 
+    // Address-space identifiers of the processes, made current in the TLB at every dispatch
+    public final AsidAllocator asids;
+
     // Reference to the main Kernel instance, allowing access to kernel-level operations.
     private final Kernel ki;
 
@@ -39,26 +86,247 @@ public class Scheduler {
     // Used for process lookup, management, and scheduling.
     public HashMap<Integer, PCB> processMap = new HashMap<>();
 
+    // Load averages over 1, 5 and 15 minutes: the number of runnable processes
+    // (running or queued), sampled every 5 seconds and exponentially damped
+    private static final long loadSampleNanos = 5_000_000_000L;
+    private static final double[] loadDecay = {
+            Math.exp(-5.0 / 60), Math.exp(-5.0 / 300), Math.exp(-5.0 / 900)};
+    private final double[] loadAverage = new double[3];
+    private long nextLoadSample = System.nanoTime() + loadSampleNanos;
+
     /**
      * Constructor.
-     * Initializes the scheduler and starts a timer that expires every 250ms.
-     * Each tick marks the current process as timed out.
+     * Creates the CPUs and copies the time slice configuration from the boot options
+     * (250 ms quantum and demotion after 5 timeouts unless configured otherwise).
      * @param k reference to the kernel instance
+     * @param options boot options (CPU count, quanta, demotion thresholds, tickless/adaptive modes)
+     * @return void
+     */
+    public Scheduler(Kernel k, BootOptions options) {
+        cpus = new Cpu[options.cpuCount];
+        for (int i = 0; i < options.cpuCount; i++) {
+            cpus[i] = new Cpu(i, SchedulingPolicy.ForName(options.schedulingPolicy));
+        }
+        cpu = cpus[0];
+        ki = k;
+        asids = new AsidAllocator(options.asidCount);
+        quantumMillis = options.quantumMillis.clone();
+        demotionThreshold = options.demotionThreshold.clone();
+        adaptiveQuantum = options.adaptiveQuantum;
+        tickless = options.tickless;
+        deadlineCapacity = options.deadlineCapacity * 10_000L;
+        promoteAfter = options.promoteAfter;
+        boostAfterMillis = options.boostAfterMillis;
+        timerSlackNanos = options.timerSlackNanos;
+    }
+
+    /**
+     * Starts the timer thread that raises the sleeper wakeup interrupt.
+     * Called by the kernel once it and the scheduler are fully constructed;
+     * a deadline armed before then is picked up when the thread starts.
+     * @return void
+     */
+    public void StartWakeupThread() {
+        wakeupThread = new Thread(this::WakeupLoop, "timer-interrupt");
+        wakeupThread.setDaemon(true);
+        wakeupThread.start();
+    }
+
+    /**
+     * Changes the time slice of a priority class; applies from the next switch.
+     * @param priority the priority class
+     * @param millis the new quantum in milliseconds (1 .. 60000)
+     * @return boolean false if the value is out of range
+     */
+    public boolean SetQuantum(OS.PriorityType priority, int millis) {
+        if (millis < 1 || millis > 60_000) {
+            return false;
+        }
+        quantumMillis[priority.ordinal()] = millis;
+        return true;
+    }
+
+    /**
+     * Returns the configured (base) time slice of a priority class.
+     * @param priority the priority class
+     * @return int the quantum in milliseconds
+     */
+    public int GetQuantum(OS.PriorityType priority) {
+        return quantumMillis[priority.ordinal()];
+    }
+
+    /**
+     * Changes after how many consecutive timeouts a process of this class is demoted.
+     * @param priority the priority class
+     * @param timeouts the new threshold (0 = never demote)
+     * @return boolean false if the value is negative
+     */
+    public boolean SetDemotionThreshold(OS.PriorityType priority, int timeouts) {
+        if (timeouts < 0) {
+            return false;
+        }
+        demotionThreshold[priority.ordinal()] = timeouts;
+        return true;
+    }
+
+    /**
+     * Computes the time slice for a process about to run on a CPU.
+     * Without adaptive mode this is the configured quantum of its class. In
+     * adaptive mode:
+     *   - realtime / interactive: the base quantum is shared by the runnable
+     *     processes of that class on the CPU, so a full round stays about one
+     *     base quantum long however many are waiting
+     *   - background: the quantum doubles for every consecutive time slice the
+     *     process used up (long-running batch work), up to maxQuantumFactor x base
+     * @param c the CPU
+     * @param p the process
+     * @return int the quantum in milliseconds
+     */
+    private int QuantumFor(Cpu c, PCB p) {
+        if (p.isDeadlineTask()) {
+            // a deadline process is stopped as soon as its runtime budget is used up
+            return (int) Math.max(1, Math.min(60_000, (p.dlRemaining + 999_999) / 1_000_000));
+        }
+        int base = quantumMillis[p.getPriority().ordinal()];
+        if (!adaptiveQuantum) {
+            return base;
+        }
+        if (p.getPriority() == OS.PriorityType.background) {
+            int factor = 1 << Math.min(p.batchRuns, 2);
+            return Math.min(base * factor, base * maxQuantumFactor);
+        }
+        int runnable = c.policy.Size(p.getPriority()) + 1;
+        return Math.max(minQuantumMillis, base / runnable);
+    }
+
+    /**
+     * Starts a fresh quantum for the process just given the CPU.
+     * @param c the CPU that just switched
      * @return void
      */
-    public Scheduler(Kernel k) {
-        // Timer runs every 250ms (quantum length).
-        timer.scheduleAtFixedRate(new TimerTask() {
+    private void RestartQuantum(Cpu c) {
+        CancelQuantum(c);
+        ArmQuantum(c);
+    }
+
+    /**
+     * Arms the quantum of the running process if it is not armed yet. Called
+     * after a switch and whenever a process becomes runnable on the CPU.
+     * In tickless mode nothing is armed while no other process waits for the CPU.
+     * The budget of a deadline process is always enforced.
+     * @param c the CPU
+     * @return void
+     */
+    private void ArmQuantum(Cpu c) {
+        PCB running = c.currentRunning;
+        if (running == null || c.quantumTimer != null) {
+            return;
+        }
+        if (tickless && !running.isDeadlineTask()) {
+            if (c.QueuedCount() == 0) {
+                return;
+            }
+        }
+        TimerTask task = new TimerTask() {
             public void run() {
-                if (currentRunning != null) {
+                if (c.quantumTimer == this) {
+                    c.quantumTimer = null;
+                }
+                if (c.currentRunning == running) {
                     // Flag the process to stop at next cooperate()
-                    currentRunning.timeout = true;
-
-                    currentRunning.requestStop();
+                    running.timeout = true;
+                    running.requestStop();
                 }
             }
-        }, 0, 250);
-        ki = k;
+        };
+        c.quantumTimer = task;
+        timer.schedule(task, QuantumFor(c, running));
+    }
+
+    /**
+     * Disarms the quantum timer of a CPU.
+     * @param c the CPU
+     * @return void
+     */
+    private void CancelQuantum(Cpu c) {
+        TimerTask task = c.quantumTimer;
+        if (task != null) {
+            task.cancel();
+            c.quantumTimer = null;
+        }
+    }
+
+    /**
+     * Makes sure the timer thread will interrupt the kernel when the timing
+     * wheel next has work: the earliest sleeper is due, or one of its higher
+     * levels has to be cascaded.
+     * @return void
+     */
+    private void ArmWakeup() {
+        long next = sleepers.NextDeadline();
+        long armed;
+        do {
+            armed = wakeupArmedFor.get();
+            if (next >= armed) {
+                return;     // an earlier (or the same) deadline is already armed
+            }
+        } while (!wakeupArmedFor.compareAndSet(armed, next));
+        LockSupport.unpark(wakeupThread);
+    }
+
+    /**
+     * Body of the timer thread: parks until the armed deadline, then raises
+     * the timer interrupt (once per arming).
+     * @return void
+     */
+    private void WakeupLoop() {
+        while (true) {
+            long armed = wakeupArmedFor.get();
+            long wait = armed - System.nanoTime();
+            if (armed == Long.MAX_VALUE) {
+                LockSupport.park(this);
+            } else if (wait > 0) {
+                LockSupport.parkNanos(this, wait);
+            } else if (wakeupArmedFor.compareAndSet(armed, Long.MAX_VALUE)) {
+                ki.TimerInterrupt();
+            }
+        }
+    }
+
+    /**
+     * Handles the sleeper wakeup interrupt: requeues every sleeper whose time
+     * has come and arms the wakeup for the next one.
+     * @return void
+     */
+    public void WakeSleepers() {
+        SleepingCheck();
+        ArmWakeup();
+    }
+
+    /**
+     * Makes the given CPU the one served by the following scheduler calls.
+     * @param id index of the CPU
+     * @return void
+     */
+    public void SelectCpu(int id) {
+        cpu = cpus[id];
+    }
+
+    /**
+     * Called when the running process of a CPU enters the kernel: the CPU
+     * leaves user mode, so the TLB invalidations deferred while the process
+     * ran are carried out now, and the process gets an ASID of the current
+     * generation if a rollover happened meanwhile.
+     * @param c the CPU whose process made a system call
+     * @return void
+     */
+    public void EnterKernel(Cpu c) {
+        c.userMode = false;
+        Tlb tlb = Hardware.tlbs[c.id];
+        tlb.ApplyDeferred();
+        if (c.currentRunning != null) {
+            tlb.SetAsid(asids.Activate(c.currentRunning, cpus));
+        }
     }
 
     /**
@@ -73,107 +341,148 @@ public class Scheduler {
         // Wrap the user process in a PCB (gives it a PID, etc.)
         PCB pcb = new PCB(up, p);
 
-        // enqueues it in the appropriate priority queue
-        if (p == OS.PriorityType.realtime){
-            realtimeProcess.addLast(pcb);
-            System.out.println("Created process " + pcb.pid + " (realtime)");
-        }
-        else if (p == OS.PriorityType.interactive){
-            interactiveProcess.addLast(pcb);
-            System.out.println("Created process " + pcb.pid + " (interactive)");
-        }
-        else{
-            backgroundProcess.addLast(pcb);
-            System.out.println("Created process " + pcb.pid + " (background)");
-        }
+        pcb.runnableSince = System.currentTimeMillis();
+        pcb.readyNanos = System.nanoTime();
+
+        // place it on the least loaded CPU
+        Cpu target = LeastLoadedCpu();
+        pcb.cpuId = target.id;
+
+        // hands it to the scheduling policy of that CPU
+        target.policy.Enqueue(pcb);
+        KernelLog.Log(KernelLog.Event.ProcessCreated, pcb.pid, p.ordinal());
 
         // if nothing else is running, call switchProcess
-        if (currentRunning == null) {
+        if (cpu.currentRunning == null) {
             SwitchProcess();
         }
 
         //store PCB in hashMap
         processMap.put(pcb.pid, pcb);
+        Vdso.PublishProcess(pcb);
+
+        // the new process competes for its CPU now
+        ArmQuantum(target);
 
         //System.out.println("Process: " + pcb.pid + "Created");
         return pcb.pid;
     }
 
     /**
-     * Switches CPU control from the current process to the next.
+     * Switches the served CPU from its current process to the next.
      * Handles demotion, requeueing, waking sleepers, and process selection.
+     * If neither this CPU nor any other CPU has a runnable process queued,
+     * the CPU is left idle (currentRunning == null).
      * @return void
      */
     public void SwitchProcess(){
-        PCB cur = currentRunning;
+        EndRun();
+        PCB cur = cpu.currentRunning;
         PCB next = null;
+        boolean preempted = false;
         //currentRunning = null;
         // Check if the current process timed out and apply demotion if needed
         // the current process is not finished, requeue it based on priority
         if (cur != null && !cur.isDone()) {
-            Demote(cur);
+            if (cur.isDeadlineTask()) {
+                cur.timeout = false;    // deadline processes are throttled, never demoted
+            } else {
+                Demote(cur);
+            }
             if (!waitingProcess.containsKey(cur.pid)) {
-                Requeue(cur);
+                preempted = true;
+                if (cur.isDeadlineTask() && cur.dlRemaining <= 0) {
+                    Throttle(cur);
+                } else {
+                    Requeue(cur);
+                }
             }
         }
         // Wake up sleeping processes whose timers have expired
         SleepingCheck();
 
-        // Select the next process to run (probabilistic choice by priority)
+        // Boost processes that have been waiting for a CPU for too long
+        AgeRunnable();
+
+        // Select the next process to run: the deadline process with the earliest
+        // deadline, else the one chosen by the CPU's scheduling policy, else
+        // one stolen from another CPU
         do {
-            next = ProbabilisticProcessPicking();
+            next = cpu.deadlineQueue.pollFirst();
+            if (next == null) {
+                next = cpu.policy.PickNext();
+            }
+            if (next == null) {
+                next = StealProcess(cpu);
+            }
+            if (next == null) {
+                break;  // nothing runnable anywhere: this CPU goes idle
+            }
             // remove the prccess if we find there is a finished Process in the queue
             if (next.isDone()) {
-                processMap.remove(next.pid);
+                RemoveFromProcessMap(next);
             }
-        } while (next == null || next.isDone());
+        } while (next.isDone());
 
-        /*
-        System.out.println("Switching from " +
-                (cur == null ? "kernel" : cur.pid + "(" +
-                        (cur.getPriority() == OS.PriorityType.realtime ? "realtime" :
-                                cur.getPriority() == OS.PriorityType.interactive ? "interactive" :
-                                        "background") + ")") +
-                " to " +
-                (next == null ? "none" : next.pid + "(" +
-                        (next.getPriority() == OS.PriorityType.realtime ? "realtime" :
-                                next.getPriority() == OS.PriorityType.interactive ? "interactive" :
-                                        "background") + ")"));
+        KernelLog.Log(KernelLog.Event.ContextSwitch, cpu.id, cur == null ? -1 : cur.pid, next == null ? -1 : next.pid);
 
-         */
-        PrintQueues();
+        if (next != cur) {
+            metrics.contextSwitches++;
+            if (preempted) {
+                cur.involuntarySwitches++;
+            }
+        }
 
-        // assign the next process as running
-        currentRunning = next;
+        // assign the next process as running; with nothing to run the CPU goes idle
+        // (the kernel then parks until the next syscall, wakeup or interrupt)
+        long now = System.nanoTime();
+        if (next == null && cpu.idleSinceNanos == 0) {
+            cpu.idleSinceNanos = now;
+        } else if (next != null && cpu.idleSinceNanos != 0) {
+            cpu.idleNanos += now - cpu.idleSinceNanos;
+            cpu.idleSinceNanos = 0;
+        }
+        cpu.currentRunning = next;
+        if (next != null) {
+            next.cpuId = cpu.id;
+            next.dispatchNanos = now;
+            next.waitNanos += now - next.readyNanos;
+            // the TLB keeps the entries of every process; only the new one's match from now on
+            Hardware.tlbs[cpu.id].ApplyDeferred();
+            Hardware.tlbs[cpu.id].SetAsid(asids.Activate(next, cpus));
+        }
+        RestartQuantum(cpu);
     }
 
     /**
      * Puts the currently running process to sleep for the given duration.
      *
      * Steps:
-     * - Compute the absolute wake-up time.
-     * - Store this in the PCB.
-     * - Move the process into the sleeping queue.
+     * - Compute the absolute (System.nanoTime()) wake-up time, rounded up to the timer slack.
+     * - Move the process into the sleeper timing wheel.
      * - Clear the current running slot so the scheduler can pick another process.
      *
-     * @param milliseconds the duration the process should sleep, in ms
-     */
-    public void Sleep(int milliseconds){
-        // Calculate when the process should wake up
-        long wakeupTime = System.currentTimeMillis() + milliseconds;
-        currentRunning.setWakeupTime(wakeupTime);
-        // add that sleeping process to Sleeping Process List
-        sleepingQueue.add(currentRunning);
-        //testing
-        System.out.println("process: " + currentRunning.pid + "sleeping now");
+     * @param nanos the duration the process should sleep, in ns
+     */
+    public void Sleep(long nanos){
+        long now = System.nanoTime();
+        long wakeupTime = now + Math.max(0, nanos);
+        if (timerSlackNanos > 0) {
+            // coalesce: every sleeper due in the same slack window wakes at its end
+            wakeupTime = Math.floorDiv(wakeupTime + timerSlackNanos - 1, timerSlackNanos) * timerSlackNanos;
+        }
+        KernelLog.Log(KernelLog.Event.ProcessSleeping, cpu.currentRunning.pid, (int) Math.min(Integer.MAX_VALUE, nanos / 1_000));
+        BlockRunning();
+        SleepUntil(cpu.currentRunning, wakeupTime);
         // Clear currentRunning so the scheduler can select another process
-        currentRunning = null;
+        cpu.currentRunning = null;
     }
 
     /**
      * Checks if the given process should be demoted due to repeated timeouts.
      * - Increments the timeout counter if the process timed out.
-     * - Demotes from realtime → interactive or interactive → background after 5 consecutive timeouts.
+     * - Demotes from realtime → interactive or interactive → background after the configured
+     *   number of consecutive timeouts for its class (5 by default, 0 disables demotion).
      * - Resets the counter if the process yielded voluntarily.
      *
      * @param currentRunningProcess the process being checked for demotion
@@ -182,21 +491,219 @@ public class Scheduler {
         if (currentRunningProcess.timeout){
             currentRunningProcess.timeout = false;
             currentRunningProcess.timeoutFrequency++;
+            currentRunningProcess.batchRuns++;
 
-            // Demote priority if process timed out 5 times in a row
-            if (currentRunningProcess.timeoutFrequency >= 5){
-                if (currentRunningProcess.getPriority() == OS.PriorityType.realtime){
+            // Demote priority if process timed out as often in a row as its class allows
+            OS.PriorityType from = currentRunningProcess.getPriority();
+            int threshold = demotionThreshold[from.ordinal()];
+            if (threshold > 0 && currentRunningProcess.timeoutFrequency >= threshold){
+                if (from == OS.PriorityType.realtime){
                     currentRunningProcess.setPriority(OS.PriorityType.interactive);
                 }
-                else if (currentRunningProcess.getPriority() == OS.PriorityType.interactive){
+                else if (from == OS.PriorityType.interactive){
                     currentRunningProcess.setPriority(OS.PriorityType.background);
                 }
+                if (currentRunningProcess.getPriority() != from) {
+                    currentRunningProcess.demotions++;
+                    metrics.demotions++;
+                    KernelLog.Log(KernelLog.Event.ProcessDemoted, currentRunningProcess.pid,
+                            from.ordinal(), currentRunningProcess.getPriority().ordinal());
+                }
                 currentRunningProcess.timeoutFrequency = 0; // reset after demotion
+                currentRunningProcess.voluntaryBlocks = 0;  // promotion has to be earned again
             }
         }
         else {
             currentRunningProcess.timeoutFrequency = 0; // reset if process yielded voluntarily
+            currentRunningProcess.batchRuns = 0;
+        }
+    }
+
+    /**
+     * Takes the running process of the served CPU off it because it blocks
+     * (Sleep, a blocking WaitForMessage, SleepUntilNextPeriod): ends its run,
+     * counts a voluntary context switch and records the block for promotion.
+     * The caller then parks the process and the CPU switches.
+     * @return void
+     */
+    private void BlockRunning(){
+        PCB p = cpu.currentRunning;
+        EndRun();
+        p.voluntarySwitches++;
+        VoluntaryBlock(p);
+    }
+
+    /**
+     * Records that a process gave up the CPU voluntarily to wait (Sleep, a
+     * WaitForMessage that blocks, or SleepUntilNextPeriod); calls that return
+     * without leaving the CPU (device I/O included) do not count. A demoted process that does this often
+     * enough is promoted one class back toward the class it was created in,
+     * so a process that turned I/O- or message-bound after a CPU-heavy phase
+     * does not stay in background forever.
+     * @param p the blocking process (the running one; not in any run queue)
+     * @return void
+     */
+    public void VoluntaryBlock(PCB p){
+        metrics.voluntaryBlocks++;
+        p.timeoutFrequency = 0;
+        if (promoteAfter == 0 || p.isDeadlineTask() || p.boostedFrom != null) {
+            return;
+        }
+        p.voluntaryBlocks++;
+        OS.PriorityType from = p.getPriority();
+        if (p.voluntaryBlocks >= promoteAfter && from.ordinal() > p.basePriority.ordinal()) {
+            p.setPriority(OS.priorityTypes[from.ordinal() - 1]);
+            p.voluntaryBlocks = 0;
+            p.promotions++;
+            metrics.promotions++;
+            KernelLog.Log(KernelLog.Event.ProcessPromoted, p.pid, from.ordinal(), p.getPriority().ordinal());
+        }
+    }
+
+    /**
+     * Aging: at most twice per boost interval, moves every runnable process
+     * that has waited for a CPU longer than boostAfterMillis up one class.
+     * The boost lasts for one run; then the process returns to its class.
+     * Deadline processes and realtime processes are not boosted.
+     * @return void
+     */
+    private void AgeRunnable(){
+        if (boostAfterMillis == 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (now < nextAgingScan) {
+            return;
+        }
+        nextAgingScan = now + boostAfterMillis / 2;
+        for (PCB p : processMap.values()) {
+            SchedulingPolicy policy = p.queuedOn;
+            if (policy == null || p.boostedFrom != null
+                    || p.getPriority() == OS.PriorityType.realtime || now - p.runnableSince < boostAfterMillis) {
+                continue;
+            }
+            OS.PriorityType from = p.getPriority();
+            policy.Remove(p);
+            p.boostedFrom = from;
+            p.setPriority(OS.priorityTypes[from.ordinal() - 1]);
+            p.runnableSince = now;
+            p.boosts++;
+            metrics.boosts++;
+            policy.Enqueue(p);
+            KernelLog.Log(KernelLog.Event.ProcessBoosted, p.pid, from.ordinal(), p.getPriority().ordinal());
+        }
+    }
+
+    /**
+     * Copies the scheduler metrics and adds the current population of each class.
+     * @return SchedulerMetrics the snapshot
+     */
+    public SchedulerMetrics MetricsSnapshot(){
+        SampleLoad(System.nanoTime());
+        SchedulerMetrics copy = metrics.Snapshot();
+        copy.runQueueLength = RunnableCount();
+        System.arraycopy(loadAverage, 0, copy.loadAverage, 0, loadAverage.length);
+        for (PCB p : processMap.values()) {
+            copy.processesPerClass[p.getPriority().ordinal()]++;
+            if (p.getPriority().ordinal() > p.basePriority.ordinal()) {
+                copy.belowBaseClass++;
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Counts the runnable processes: running on a CPU or queued for one.
+     * @return int the system-wide run-queue length
+     */
+    private int RunnableCount(){
+        int n = 0;
+        for (Cpu c : cpus) {
+            n += c.QueuedCount() + (c.currentRunning == null ? 0 : 1);
         }
+        return n;
+    }
+
+    /**
+     * Folds the run-queue length into the load averages for every 5-second
+     * sample point that has passed. Called by the kernel before each system
+     * call, so the length has not changed since the missed sample points.
+     * @param now the current System.nanoTime()
+     * @return void
+     */
+    public void SampleLoad(long now){
+        if (now < nextLoadSample) {
+            return;
+        }
+        int runnable = RunnableCount();
+        while (now >= nextLoadSample) {
+            for (int i = 0; i < loadAverage.length; i++) {
+                loadAverage[i] = loadAverage[i] * loadDecay[i] + runnable * (1 - loadDecay[i]);
+            }
+            nextLoadSample += loadSampleNanos;
+        }
+    }
+
+    /**
+     * Returns the accounting of one process (the OS.GetProcessStats() call).
+     * @param pid the process id
+     * @return ProcessStats a snapshot, or null if no such process exists
+     */
+    public ProcessStats ProcessStatsOf(int pid){
+        PCB p = processMap.get(pid);
+        return p == null ? null : StatsOf(p, System.nanoTime());
+    }
+
+    /**
+     * Returns the accounting of every live process (the OS.GetAllProcessStats() call).
+     * @return ProcessStats[] one snapshot per process, ordered by pid
+     */
+    public ProcessStats[] AllProcessStats(){
+        long now = System.nanoTime();
+        ProcessStats[] all = new ProcessStats[processMap.size()];
+        int i = 0;
+        for (PCB p : processMap.values()) {
+            all[i++] = StatsOf(p, now);
+        }
+        Arrays.sort(all, Comparator.comparingInt(s -> s.pid));
+        return all;
+    }
+
+    /**
+     * Copies the accounting of a process, including the run or wait in progress.
+     * @param p the process
+     * @param now the current System.nanoTime()
+     * @return ProcessStats the snapshot
+     */
+    private ProcessStats StatsOf(PCB p, long now){
+        ProcessStats s = new ProcessStats();
+        s.pid = p.pid;
+        s.name = p.nameOfProcess;
+        s.priority = p.getPriority();
+        s.basePriority = p.basePriority;
+        s.cpuId = p.cpuId;
+        long cpuNanos = p.cpuNanos;
+        long waitNanos = p.waitNanos;
+        if (cpus[p.cpuId].currentRunning == p) {
+            s.state = "running";
+            cpuNanos += now - p.dispatchNanos;
+        } else if (p.sleeping) {
+            s.state = "sleeping";
+        } else if (waitingProcess.containsKey(p.pid)) {
+            s.state = "waiting";
+        } else {
+            s.state = "runnable";
+            waitNanos += now - p.readyNanos;
+        }
+        s.kernelNanos = p.kernelNanos;
+        s.userNanos = Math.max(0, cpuNanos - p.kernelNanos);
+        s.waitNanos = waitNanos;
+        s.voluntarySwitches = p.voluntarySwitches;
+        s.involuntarySwitches = p.involuntarySwitches;
+        s.demotions = p.demotions;
+        s.promotions = p.promotions;
+        s.boosts = p.boosts;
+        return s;
     }
 
     /**
@@ -215,7 +722,7 @@ public class Scheduler {
             // clean up the space if process is finished
             ki.CleanUpDevice(currentRunningProcess);
             // remove that process from the map
-            processMap.remove(currentRunningProcess.pid);
+            RemoveFromProcessMap(currentRunningProcess);
             return;
         }
 
@@ -228,134 +735,351 @@ public class Scheduler {
         The user process is done() – we just don’t add it to the list.
         If there*was a running process, and it’s not finished, put it back into the queue.
          */
-        // Add process to the correct queue by priority
-        if (currentRunningProcess.getPriority() == OS.PriorityType.realtime){
-            realtimeProcess.addLast(currentRunningProcess);
+        // Add process to the correct queue of its own CPU by priority
+        currentRunningProcess.runnableSince = System.currentTimeMillis();
+        currentRunningProcess.readyNanos = System.nanoTime();
+        Cpu home = cpus[currentRunningProcess.cpuId];
+        if (currentRunningProcess.isDeadlineTask()) {
+            EnqueueDeadline(home, currentRunningProcess);
+        } else {
+            home.policy.Enqueue(currentRunningProcess);
         }
-        else if (currentRunningProcess.getPriority() == OS.PriorityType.interactive){
-            interactiveProcess.addLast(currentRunningProcess);
+        ArmQuantum(home);
+    }
+
+    /**
+     * Admits the running process to the deadline (EDF) class, changes its
+     * parameters, or (all zero) takes it out of the class.
+     * Admission control: the bandwidths runtime / deadline of all deadline
+     * processes on the CPU must not exceed the configured capacity; only
+     * then can every one of them meet all its deadlines under EDF.
+     * @param runtimeMicros runtime budget per period
+     * @param deadlineMicros relative deadline
+     * @param periodMicros period
+     * @return boolean true if the parameters were accepted
+     */
+    public boolean SetRealtimeParams(int runtimeMicros, int deadlineMicros, int periodMicros) {
+        PCB p = cpu.currentRunning;
+        if (runtimeMicros == 0 && deadlineMicros == 0 && periodMicros == 0) {
+            if (p.isDeadlineTask()) {
+                ReleaseBandwidth(p);
+                p.dlRuntime = 0;
+                RestartQuantum(cpu);
+            }
+            return true;
         }
-        else {
-            backgroundProcess.addLast(currentRunningProcess);
+        if (runtimeMicros <= 0 || runtimeMicros > deadlineMicros || deadlineMicros > periodMicros
+                || periodMicros > 60_000_000) {
+            return false;
+        }
+        long bandwidth = runtimeMicros * 1_000_000L / deadlineMicros;
+        long others = cpu.deadlineBandwidth - (p.isDeadlineTask() ? p.dlBandwidth : 0);
+        if (others + bandwidth > deadlineCapacity) {
+            KernelLog.Log(KernelLog.Event.DeadlineRejected, p.pid, (int) bandwidth, cpu.id);
+            return false;
         }
+        cpu.deadlineBandwidth = others + bandwidth;
+        p.dlBandwidth = bandwidth;
+        p.dlRuntime = runtimeMicros * 1_000L;
+        p.dlDeadline = deadlineMicros * 1_000L;
+        p.dlPeriod = periodMicros * 1_000L;
+        p.setPriority(OS.PriorityType.realtime);
+        p.timeoutFrequency = 0;
+
+        // the first job starts now
+        long now = System.nanoTime();
+        p.dlJobRelease = now;
+        p.dlPeriodStart = now;
+        p.dlAbsoluteDeadline = now + p.dlDeadline;
+        p.dlRemaining = p.dlRuntime;
+        p.dispatchNanos = now;
+        RestartQuantum(cpu);
+        KernelLog.Log(KernelLog.Event.DeadlineAdmitted, p.pid, (int) bandwidth, cpu.id);
+        return true;
     }
 
     /**
-     * Moves any processes whose sleep time has expired
-     * from the sleeping queue back into their appropriate
-     * ready queues.
-     *
+     * Returns the bandwidth of a deadline process to its CPU.
+     * @param p the process leaving the deadline class (or terminating)
      * @return void
      */
-    private void SleepingCheck(){
-        long now = System.currentTimeMillis();
-        /*
-        // check sleep process should be wakening
-        for (int i = 0; i < sleepingQueue.size(); i++) {
-            PCB p = sleepingQueue.get(i);
-            // If process wake-up time has passed, requeue it
-            if (p.getWakeupTime() <= now) {
-                // move to the correct queue
-                if (p.getPriority() == OS.PriorityType.realtime) {
-                    realtimeProcess.addLast(p);
-                } else if (p.getPriority() == OS.PriorityType.interactive) {
-                    interactiveProcess.addLast(p);
-                } else {
-                    backgroundProcess.addLast(p);
-                }
-                // remove from sleepingQueue
-                sleepingQueue.remove(i);
-                i--; // adjust index since list shrinks
+    private void ReleaseBandwidth(PCB p) {
+        cpus[p.cpuId].deadlineBandwidth -= p.dlBandwidth;
+        p.dlBandwidth = 0;
+    }
+
+    /**
+     * Ends the current job of the running deadline process: the next job is
+     * released exactly one period after this one (skipping periods that are
+     * already over), and the process sleeps until then. A job that ran past
+     * the deadline of its release counts as a miss, even if throttling gave
+     * it fresh budget with later deadlines on the way.
+     * @return int periods lost (0 = deadline met), or -1 if not a deadline process
+     */
+    public int SleepUntilNextPeriod() {
+        PCB p = cpu.currentRunning;
+        if (!p.isDeadlineTask()) {
+            return -1;
+        }
+        long now = System.nanoTime();
+        int lost = 0;
+        long release = p.dlJobRelease + p.dlPeriod;
+        if (now > p.dlJobRelease + p.dlDeadline) {
+            lost = 1;
+            if (release <= now) {
+                long skipped = (now - release) / p.dlPeriod + 1;
+                release += skipped * p.dlPeriod;
+                lost += (int) skipped;
             }
+            p.dlMisses++;
+            metrics.deadlineMisses++;
+            KernelLog.Log(KernelLog.Event.DeadlineMissed, p.pid, lost);
+        }
+        p.dlJobRelease = release;
+        p.dlPeriodStart = release;
+        p.dlAbsoluteDeadline = release + p.dlDeadline;
+        p.dlRemaining = p.dlRuntime;
+        p.dlWaitingForRelease = true;
+        BlockRunning();
+        SleepUntil(p, release);
+        cpu.currentRunning = null;
+        return lost;
+    }
 
-         */
-        while (!sleepingQueue.isEmpty() && sleepingQueue.peek().getWakeupTime() <= now) {
-            PCB p = sleepingQueue.poll();
-
-            // If process wake-up time has passed, requeue it
-            if (p.getWakeupTime() <= now) {
-                // move to the correct queue
-                if (p.getPriority() == OS.PriorityType.realtime) {
-                    realtimeProcess.addLast(p);
-                } else if (p.getPriority() == OS.PriorityType.interactive) {
-                    interactiveProcess.addLast(p);
-                } else {
-                    backgroundProcess.addLast(p);
-                }
+    /**
+     * Stops a deadline process that used up its runtime until its next period.
+     * @param p the process (just taken off the served CPU)
+     * @return void
+     */
+    private void Throttle(PCB p) {
+        long now = System.nanoTime();
+        long release = p.dlPeriodStart + p.dlPeriod;
+        metrics.deadlineThrottles++;
+        KernelLog.Log(KernelLog.Event.DeadlineThrottled, p.pid, (int) Math.max(0, (release - now) / 1_000_000));
+        SleepUntil(p, release);
+    }
+
+    /**
+     * Puts a process into the sleeper timing wheel until a System.nanoTime() instant.
+     * @param p the process
+     * @param wakeNanos when it should wake up
+     * @return void
+     */
+    private void SleepUntil(PCB p, long wakeNanos) {
+        sleepers.Add(p, wakeNanos);
+        p.sleeping = true;
+        ArmWakeup();
+    }
+
+    /**
+     * Gives a deadline process that becomes runnable a fresh budget when its
+     * current one may no longer be used (constant bandwidth server rules):
+     * - its deadline has passed: the current period (counted from the last
+     *   release) starts, or a new one starts now if that is over as well
+     * - running the rest of its budget before the deadline would use more
+     *   than its bandwidth: a new period starts now
+     * @param p the process
+     * @param now the current System.nanoTime()
+     * @return void
+     */
+    private void Replenish(PCB p, long now) {
+        if (now >= p.dlAbsoluteDeadline) {
+            p.dlPeriodStart += (now - p.dlPeriodStart) / p.dlPeriod * p.dlPeriod;
+            p.dlAbsoluteDeadline = p.dlPeriodStart + p.dlDeadline;
+            if (p.dlAbsoluteDeadline <= now) {
+                p.dlPeriodStart = now;
+                p.dlAbsoluteDeadline = now + p.dlDeadline;
             }
-            System.out.println("Process " + p.pid + " woke up and requeued.");
+            p.dlRemaining = p.dlRuntime;
+        }
+        else if ((double) p.dlRemaining / (p.dlAbsoluteDeadline - now) > (double) p.dlRuntime / p.dlDeadline) {
+            p.dlPeriodStart = now;
+            p.dlAbsoluteDeadline = now + p.dlDeadline;
+            p.dlRemaining = p.dlRuntime;
         }
     }
 
     /**
-     * Selects the next process to run using probabilistic scheduling.
-     * - If realtime processes exist: 60% realtime, 30% interactive (if available),
-     *   10% background (if available).
-     * - If only interactive/background exist: 75% interactive, 25% background.
-     * - If only background exists: always background.
-     * - If no processes exist: prints error and exits.
-     *
-     * @return PCB the next process chosen to run
+     * Queues a runnable deadline process on its CPU and preempts the running
+     * process unless that one is a deadline process with an earlier deadline.
+     * @param home the process's CPU
+     * @param p the process
+     * @return void
      */
-    private PCB ProbabilisticProcessPicking(){
-        PCB next = null;
+    private void EnqueueDeadline(Cpu home, PCB p) {
+        home.deadlineQueue.add(p);
+        PCB running = home.currentRunning;
+        if (running != null && running != p
+                && (!running.isDeadlineTask() || p.dlAbsoluteDeadline < running.dlAbsoluteDeadline)) {
+            running.requestStop();
+        }
+    }
 
-        // 6/10 we will run a real-time process, 3/10 we will run an interactive process (if there is one) otherwise 1/10 we will run a background process.
-        if (!realtimeProcess.isEmpty()) {
-            int r = rand.nextInt(10); // 0–9
-            if (r < 1 && !backgroundProcess.isEmpty()) {
-                next = backgroundProcess.removeFirst();   // 10%
-            } else if (r >= 1 && r < 4 && !interactiveProcess.isEmpty()) {
-                next = interactiveProcess.removeFirst();  // 30%
+    /**
+     * Makes a process that slept or waited for a message runnable again on its own CPU.
+     * @param p the process
+     * @return void
+     */
+    public void Wakeup(PCB p){
+        p.runnableSince = System.currentTimeMillis();
+        p.readyNanos = System.nanoTime();
+        Cpu home = cpus[p.cpuId];
+        if (p.isDeadlineTask()) {
+            if (p.dlWaitingForRelease) {
+                p.dlWaitingForRelease = false;  // released on schedule, keeps its own deadline
             } else {
-                // default: realtime (covers r=4–9, or fallback if others empty)
-                next = realtimeProcess.removeFirst();
+                Replenish(p, System.nanoTime());
             }
+            EnqueueDeadline(home, p);
+        } else {
+            home.policy.Wakeup(p);
         }
-        else if (!interactiveProcess.isEmpty()) {
-            int r = rand.nextInt(4); // 0–3
-            if (r < 1 && !backgroundProcess.isEmpty()) {
-                next = backgroundProcess.removeFirst();   // 25%
+        ArmQuantum(home);
+    }
+
+    /**
+     * Ends the current run of the served CPU's process, however it ends
+     * (preempted, yielding, sleeping, waiting for a message or a period,
+     * exiting): charges it for the run and undoes an aging boost, which lasts
+     * for one run. Safe to call more than once per run.
+     * @return void
+     */
+    public void EndRun(){
+        ChargeRunning(cpu);
+        PCB p = cpu.currentRunning;
+        if (p != null && p.boostedFrom != null) {
+            p.setPriority(p.boostedFrom);
+            p.boostedFrom = null;
+        }
+    }
+
+    /**
+     * Charges the process running on a CPU for the time since it was dispatched
+     * (or last charged).
+     * @param c the CPU
+     * @return void
+     */
+    private void ChargeRunning(Cpu c){
+        PCB running = c.currentRunning;
+        if (running != null) {
+            long ran = System.nanoTime() - running.dispatchNanos;
+            running.dispatchNanos += ran;
+            running.cpuNanos += ran;
+            if (running.isDeadlineTask()) {
+                running.dlRemaining -= ran;
             } else {
-                next = interactiveProcess.removeFirst();  // 75% or fallback
+                c.policy.Charge(running, ran);
             }
         }
-        else if (!backgroundProcess.isEmpty()) {
-            next = backgroundProcess.removeFirst();
+    }
+
+    /**
+     * Moves any processes whose sleep time has expired
+     * from the sleeping queue back into their appropriate
+     * ready queues.
+     *
+     * @return void
+     */
+    private void SleepingCheck(){
+        PCB p = sleepers.Advance(System.nanoTime());
+        while (p != null) {
+            PCB next = p.timerNext;
+            p.timerNext = null;
+            p.sleeping = false;
+            // move it back to the correct queue of its own CPU
+            Wakeup(p);
+            KernelLog.Log(KernelLog.Event.ProcessWokeUp, p.pid);
+            p = next;
         }
-        return next;
     }
 
-    public int getPid(PCB currentRunningProcess){
-        return currentRunningProcess.pid;
+    /**
+     * Work stealing: takes one queued (non-deadline) process from the most loaded other CPU.
+     * The victim's scheduling policy chooses which process it gives away.
+     *
+     * @param thief the idle CPU looking for work
+     * @return PCB the stolen process (now assigned to the thief), or null if no CPU has queued work
+     */
+    private PCB StealProcess(Cpu thief){
+        Cpu victim = null;
+        for (Cpu c : cpus) {
+            // deadline processes are admitted to one CPU and never migrate
+            if (c != thief && c.policy.Size() > 0 && (victim == null || c.policy.Size() > victim.policy.Size())) {
+                victim = c;
+            }
+        }
+        if (victim == null) {
+            return null;
+        }
+
+        PCB stolen = victim.policy.StealOne();
+        if (stolen != null) {
+            stolen.cpuId = thief.id;
+        }
+        return stolen;
     }
 
     /**
-     * Prints the current contents of all process queues for debugging.
+     * Checks whether any CPU has a process waiting in its run queues.
+     * @return boolean true if there is queued work somewhere
      */
-    public void PrintQueues() {
-        System.out.print("Realtime Queue: ");
-        for (PCB p : realtimeProcess) System.out.print(p.pid + " ");
-        System.out.println();
+    public boolean HasQueuedWork(){
+        for (Cpu c : cpus) {
+            if (c.QueuedCount() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the CPU with the fewest assigned processes (ties go to the lowest id).
+     * @return Cpu the least loaded CPU
+     */
+    private Cpu LeastLoadedCpu(){
+        Cpu best = cpus[0];
+        for (Cpu c : cpus) {
+            if (c.Load() < best.Load()) {
+                best = c;
+            }
+        }
+        return best;
+    }
 
-        System.out.print("Interactive Queue: ");
-        for (PCB p : interactiveProcess) System.out.print(p.pid + " ");
-        System.out.println();
+    public int getPid(PCB currentRunningProcess){
+        return currentRunningProcess.pid;
+    }
 
-        System.out.print("Background Queue: ");
-        for (PCB p : backgroundProcess) System.out.print(p.pid + " ");
-        System.out.println();
+    /**
+     * Describes the current contents of all process queues, for debugging.
+     * Built on demand (OS.GetQueueDump()) rather than printed on every switch.
+     * @return String one line per queue
+     */
+    public String QueueDump() {
+        StringBuilder sb = new StringBuilder();
+        for (Cpu c : cpus) {
+            if (cpus.length > 1) {
+                sb.append("CPU ").append(c.id).append(" (running: ")
+                        .append(c.currentRunning == null ? "idle" : c.currentRunning.pid)
+                        .append(", idle ").append(c.IdleNanos(System.nanoTime()) / 1_000_000).append(" ms)\n");
+            }
+            sb.append("Deadline Queue: ");
+            for (PCB p : c.deadlineQueue) sb.append(p.pid).append(' ');
+            sb.append('\n');
+            c.policy.AppendQueues(sb);
+        }
 
-        System.out.print("Sleeping Queue: ");
-        for (PCB p : sleepingQueue) System.out.print(p.pid + " ");
-        System.out.println();
+        sb.append("Sleeping Queue: ");
+        sleepers.AppendPids(sb);
+        sb.append('\n');
 
-        System.out.print("Waiting Map: ");
+        sb.append("Waiting Map: ");
         for (PCB p : waitingProcess.values()) {
             int inbox = (p.messageQueue == null) ? 0 : p.messageQueue.size();
-            System.out.print(p.pid + "[inbox=" + inbox + "] ");
+            sb.append(p.pid).append("[inbox=").append(inbox).append("] ");
         }
-        System.out.println("\n");
+        sb.append('\n');
+        return sb.toString();
     }
 
     /**
@@ -363,7 +1087,21 @@ public class Scheduler {
      * This is typically called when a process terminates or is being replaced.
      */
     public void RemoveCurrentProcessFromTheMap(){
-        processMap.remove(currentRunning.pid);
+        RemoveFromProcessMap(cpu.currentRunning);
+    }
+
+    /**
+     * Removes a process from the process table and from the data published to userland.
+     * @param process the process to remove
+     */
+    private void RemoveFromProcessMap(PCB process){
+        if (processMap.remove(process.pid) != null) {
+            asids.Release(process, cpus);
+            Vdso.RetractProcess(process);
+            if (process.isDeadlineTask()) {
+                ReleaseBandwidth(process);
+            }
+        }
     }
 
     /**
@@ -372,8 +1110,9 @@ public class Scheduler {
      * the condition it is waiting for is satisfied.
      */
     public void PutCurrentProcessInTheWaitingMap(){
-        currentRunning.requestStop();
-        waitingProcess.put(currentRunning.pid, currentRunning);
+        BlockRunning();
+        cpu.currentRunning.requestStop();
+        waitingProcess.put(cpu.currentRunning.pid, cpu.currentRunning);
 
     }
 
@@ -409,29 +1148,31 @@ public class Scheduler {
      * Prevents message buildup when the process is being reset or terminated.
      */
     public void ClearMessageInQueue(){
-        if (currentRunning.messageQueue == null){
+        if (cpu.currentRunning.messageQueue == null){
             return;
         }
-        currentRunning.messageQueue.clear();
+        cpu.currentRunning.messageQueue.clear();
     }
 
     /**
      * Removes the specified process from all scheduling queues it may belong to,
-     * including realtime, interactive, background, and sleeping queues.
+     * including realtime, interactive, background (of its CPU), and sleeping queues.
+     * Leaving a run queue is O(1); only a process that is actually asleep pays
+     * for the search of the sleeping queue.
      *
      * @param process the process to remove from the queues
      */
     public void RemoveFromPriorityQueue(PCB process){
-        if (process.getPriority() == OS.PriorityType.realtime){
-            realtimeProcess.remove(process);
+        if (process.queuedOn != null) {
+            process.queuedOn.Remove(process);
         }
-        else if (process.getPriority() == OS.PriorityType.interactive){
-            interactiveProcess.remove(process);
+        if (process.isDeadlineTask()) {
+            cpus[process.cpuId].deadlineQueue.remove(process);
         }
-        else if (process.getPriority() == OS.PriorityType.background){
-            backgroundProcess.remove(process);
+        if (process.sleeping) {
+            sleepers.Remove(process);
+            process.sleeping = false;
         }
-        sleepingQueue.remove(process);
     }
 
     /**
@@ -439,7 +1180,7 @@ public class Scheduler {
      * This is typically called when the process resumes execution after waiting.
      */
     public void RemoveCurrentProcessFromWaitingProcessMap(){
-        waitingProcess.remove(currentRunning.pid);
+        waitingProcess.remove(cpu.currentRunning.pid);
     }
 
     /**
@@ -448,24 +1189,50 @@ public class Scheduler {
      * Behavior:
      * - Randomly selects a PCB from the process map.
      * - Rejects processes that have no physical pages allocated.
-     * - Repeats until it finds a process that owns at least one physical page.
+     * - Rejects processes running in user mode on a CPU: they may be in the
+     *   middle of an access to a frame they already translated.
      *
      * Used for:
      * - Swap-out victim selection in the paging system.
+     *
+     * @return PCB the victim, or null if every process owning a frame is running
      */
 
     public PCB GetRandomProcesss(){
-        // get total number of processes
-        int size = processMap.size();
-        PCB randomPCB;
+        List<PCB> candidates = new ArrayList<>();
+        for (PCB p : processMap.values()) {
+            if (!IsInUserMode(p) && PhysicalMemoryAvailabilityCheck(p)) {
+                candidates.add(p);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        return candidates.get(new Random().nextInt(candidates.size()));
+    }
 
-        // check if victim process has physical memory
-        do{
-            int randomIndex = new Random().nextInt(size);
-            randomPCB = processMap.values().toArray(new PCB[0])[randomIndex];
-        } while (!PhysicalMemoryAvailabilityCheck(randomPCB));
+    /**
+     * Asks every process that runs in user mode and owns a physical frame
+     * to enter the kernel at its next cooperate(), so that a frame can be
+     * taken from it there (see Kernel.main).
+     * @return void
+     */
+    public void RequestStopOfFrameOwners(){
+        for (Cpu c : cpus) {
+            PCB running = c.currentRunning;
+            if (c.userMode && running != null && PhysicalMemoryAvailabilityCheck(running)) {
+                running.requestStop();
+            }
+        }
+    }
 
-        return randomPCB;
+    /**
+     * @param p a process
+     * @return true if p is running in user mode on its CPU
+     */
+    private boolean IsInUserMode(PCB p){
+        Cpu home = cpus[p.cpuId];
+        return home.userMode && home.currentRunning == p;
     }
 
     /**
@@ -480,7 +1247,7 @@ public class Scheduler {
      * Used by:
      * - GetRandomProcesss() to ensure swap victims actually exist.
      */
-    private boolean PhysicalMemoryAvailabilityCheck(PCB process){
+    public boolean PhysicalMemoryAvailabilityCheck(PCB process){
         for(int i = 0; i < process.virtualMemoryMappingTable.length; i++){
             if (process.virtualMemoryMappingTable[i] != null &&
                     process.virtualMemoryMappingTable[i].physicalPage >= 0){
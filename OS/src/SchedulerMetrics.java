@@ -0,0 +1,74 @@
+/**
+ * SchedulerMetrics class.
+ * -----------------------
+ * Counters kept by the Scheduler about how processes move between priority
+ * classes and CPUs:
+ *   - demotions: a process used up its quantum too often in a row
+ *   - promotions: a demoted process blocked voluntarily often enough
+ *     (Sleep, WaitForMessage, device I/O) to move back toward its original class
+ *   - boosts: a runnable process waited long enough to be moved up one class
+ *     for its next run (aging)
+ * plus context switches, voluntary blocks and deadline-class events, and the
+ * system-wide run-queue length with its load averages.
+ *
+ * Only the kernel thread updates the counters; userland reads a copy obtained
+ * through OS.GetSchedulerMetrics(), which also tells how many processes are in
+ * each class right now.
+ */
+public class SchedulerMetrics {
+    public long contextSwitches;
+    public long voluntaryBlocks;
+    public long demotions;
+    public long promotions;
+    public long boosts;
+    public long deadlineThrottles;
+    public long deadlineMisses;
+
+    // Filled in snapshots only: live processes per OS.PriorityType ordinal,
+    // and how many of them sit below the class they were created in
+    public final int[] processesPerClass = new int[OS.priorityTypes.length];
+    public int belowBaseClass;
+
+    // Filled in snapshots only: runnable processes (running or queued) right now,
+    // and their 1, 5 and 15 minute load averages
+    public int runQueueLength;
+    public final double[] loadAverage = new double[3];
+
+    /**
+     * Copies the counters, so the copy can be handed to userland.
+     * @return SchedulerMetrics an independent copy
+     */
+    public SchedulerMetrics Snapshot() {
+        SchedulerMetrics copy = new SchedulerMetrics();
+        copy.contextSwitches = contextSwitches;
+        copy.voluntaryBlocks = voluntaryBlocks;
+        copy.demotions = demotions;
+        copy.promotions = promotions;
+        copy.boosts = boosts;
+        copy.deadlineThrottles = deadlineThrottles;
+        copy.deadlineMisses = deadlineMisses;
+        return copy;
+    }
+
+    /**
+     * Formats the counters, one per line.
+     * @return String the report
+     */
+    public String Report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-22s %10d%n", "context switches", contextSwitches));
+        sb.append(String.format("%-22s %10d%n", "voluntary blocks", voluntaryBlocks));
+        sb.append(String.format("%-22s %10d%n", "demotions", demotions));
+        sb.append(String.format("%-22s %10d%n", "promotions", promotions));
+        sb.append(String.format("%-22s %10d%n", "aging boosts", boosts));
+        sb.append(String.format("%-22s %10d%n", "deadline throttles", deadlineThrottles));
+        sb.append(String.format("%-22s %10d%n", "deadline misses", deadlineMisses));
+        for (OS.PriorityType p : OS.priorityTypes) {
+            sb.append(String.format("%-22s %10d%n", p + " processes", processesPerClass[p.ordinal()]));
+        }
+        sb.append(String.format("%-22s %10d%n", "below base class", belowBaseClass));
+        sb.append(String.format("%-22s %10d%n", "run-queue length", runQueueLength));
+        sb.append(String.format("%-22s %10.2f %.2f %.2f%n", "load average", loadAverage[0], loadAverage[1], loadAverage[2]));
+        return sb.toString();
+    }
+}
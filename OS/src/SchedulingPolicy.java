@@ -0,0 +1,109 @@
+/**
+ * SchedulingPolicy Interface
+ * --------------------------
+ * Owns the runnable processes of one CPU and decides which one runs next.
+ * The Scheduler keeps everything else (sleeping and waiting processes, the
+ * quantum timers, demotion, work stealing between CPUs) and only hands
+ * runnable processes to the policy of their CPU and asks it for the next one.
+ *
+ * Every CPU has its own policy instance, so implementations need no locking.
+ * A policy marks the processes it holds with PCB.queuedOn.
+ *
+ * Available policies (selected with BootOptions / "--policy NAME"):
+ *   - lottery : random 60/30/10 split between the priority classes (default)
+ *   - stride  : deterministic proportional share between classes and processes
+ *   - fair    : completely fair scheduling on weighted virtual runtime
+ */
+public interface SchedulingPolicy {
+    /**
+     * Adds a process that became runnable (new, preempted, woken up or stolen).
+     * @param pcb the process (must not be queued on any policy)
+     * @return void
+     */
+    void Enqueue(PCB pcb);
+
+    /**
+     * Adds a process that was woken up from a sleep or by a message.
+     * Policies that favour interactive processes may place it earlier than Enqueue would.
+     * @param pcb the process (must not be queued on any policy)
+     * @return void
+     */
+    default void Wakeup(PCB pcb) {
+        Enqueue(pcb);
+    }
+
+    /**
+     * Accounts CPU time to a process that is leaving the CPU.
+     * @param pcb the process that ran
+     * @param ranNanos how long it ran since it was dispatched
+     * @return void
+     */
+    default void Charge(PCB pcb, long ranNanos) {
+    }
+
+    /**
+     * Removes and returns the process that should run next.
+     * @return PCB the chosen process, or null if nothing is queued
+     */
+    PCB PickNext();
+
+    /**
+     * Removes and returns a process another CPU may run instead (work stealing).
+     * @return PCB the process given away, or null if nothing is queued
+     */
+    PCB StealOne();
+
+    /**
+     * Removes a queued process (termination, idle parking).
+     * @param pcb the process
+     * @return boolean true if the process was queued here
+     */
+    boolean Remove(PCB pcb);
+
+    /** @return the number of queued processes */
+    int Size();
+
+    /** @return the number of queued processes of one priority class */
+    int Size(OS.PriorityType priority);
+
+    /**
+     * Appends one line per priority class listing the queued pids in service order.
+     * @param sb the builder to append to
+     * @return void
+     */
+    void AppendQueues(StringBuilder sb);
+
+    /**
+     * @return the name this policy is selected by
+     */
+    String Name();
+
+    /**
+     * Creates a new instance of the policy registered under the given name.
+     *
+     * @param name "lottery", "stride" or "fair"
+     * @return a new policy instance
+     * @throws IllegalArgumentException if the name is unknown
+     */
+    static SchedulingPolicy ForName(String name) {
+        return switch (name) {
+            case "lottery" -> new LotteryPolicy();
+            case "stride" -> new StridePolicy();
+            case "fair" -> new FairPolicy();
+            default -> throw new IllegalArgumentException("Unknown scheduling policy: " + name);
+        };
+    }
+
+    /**
+     * Label used for a priority class in queue dumps.
+     * @param priority the priority class
+     * @return String e.g. "Realtime Queue: "
+     */
+    static String QueueLabel(OS.PriorityType priority) {
+        return switch (priority) {
+            case realtime -> "Realtime Queue: ";
+            case interactive -> "Interactive Queue: ";
+            case background -> "Background Queue: ";
+        };
+    }
+}
@@ -0,0 +1,195 @@
+import java.util.Comparator;
+import java.util.TreeSet;
+
+/**
+ * StridePolicy class.
+ * -------------------
+ * Deterministic proportional-share scheduling (stride scheduling), in two levels:
+ *
+ * 1. Between priority classes. Each class holds tickets (realtime 60,
+ *    interactive 30, background 10, the same ratios LotteryPolicy draws) and
+ *    a pass value. The non-empty class with the smallest pass is served.
+ *    When its process leaves the CPU (Charge), the class's pass grows by its
+ *    stride times the CPU time used (classStride / tickets per nanosecond).
+ *    So every class gets its share of the CPU time of the classes that have
+ *    work, e.g. 60:30:10, or 75:25 while no realtime process is runnable,
+ *    whether its processes use their whole quantum or block after a moment.
+ *
+ * 2. Between processes of a class. Each process's tickets are the weight of
+ *    its nice value (1024 at nice 0, about 1.25x per nice step). The class
+ *    keeps its processes in a tree ordered by (pass, pid); the first one runs
+ *    and its pass grows in proportion to the CPU time it used, scaled by
+ *    1024 / weight. Picking is O(log n).
+ *
+ * A class or process that was not runnable does not bank credit: on joining
+ * it starts at the current pass of its level. Ties are broken by class order
+ * and pid, so the same workload is always scheduled the same way.
+ */
+public class StridePolicy implements SchedulingPolicy {
+    // Class pass per nanosecond of CPU time is classStride / tickets (1 for realtime)
+    private static final long classStride = 60;
+
+    // Process pass per nanosecond of CPU time is processStride / weight (1 at nice 0)
+    private static final long processStride = 1024;
+
+    // Tickets per priority class, indexed by OS.PriorityType ordinal
+    private static final int[] classTickets = {60, 30, 10};
+
+    // Weight of each nice value -20 .. 19: every step is about 10% of CPU time
+    private static final int[] niceWeights = {
+            88761, 71755, 56483, 46273, 36291,
+            29154, 23254, 18705, 14949, 11916,
+            9548, 7620, 6100, 4904, 3906,
+            3121, 2501, 1991, 1586, 1277,
+            1024, 820, 655, 526, 423,
+            335, 272, 215, 172, 137,
+            110, 87, 70, 56, 45,
+            36, 29, 23, 18, 15,
+    };
+
+    private static final Comparator<PCB> byPass =
+            Comparator.<PCB>comparingLong(p -> p.stridePass).thenComparingInt(p -> p.pid);
+
+    // Runnable processes of each class, ordered by pass
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final TreeSet<PCB>[] classes = new TreeSet[OS.priorityTypes.length];
+
+    // Pass of each class, and pass of the process last picked in each class (ns of CPU time, scaled)
+    private final long[] classPass = new long[OS.priorityTypes.length];
+    private final long[] classVirtualTime = new long[OS.priorityTypes.length];
+
+    // Pass of the class picked last
+    private long globalPass = 0;
+
+    private int size = 0;
+
+    /**
+     * Constructor.
+     * @return void
+     */
+    public StridePolicy() {
+        for (int i = 0; i < classes.length; i++) {
+            classes[i] = new TreeSet<>(byPass);
+        }
+    }
+
+    /**
+     * Returns the scheduling weight of a nice value.
+     * @param nice the nice value (clamped to -20 .. 19)
+     * @return int the weight (1024 at nice 0)
+     */
+    public static int Weight(int nice) {
+        int index = Math.max(0, Math.min(nice - RunQueue.minNice, niceWeights.length - 1));
+        return niceWeights[index];
+    }
+
+    @Override
+    public void Enqueue(PCB pcb) {
+        if (pcb.queuedOn != null) {
+            throw new IllegalStateException("Process " + pcb.pid + " is already queued");
+        }
+        int c = pcb.getPriority().ordinal();
+        if (classes[c].isEmpty()) {
+            // the class rejoins the competition where the others are now
+            classPass[c] = Math.max(classPass[c], globalPass);
+        }
+        if (pcb.strideClass != c) {
+            // new here, stolen, or promoted/demoted: passes of other classes do not compare
+            pcb.stridePass = classVirtualTime[c];
+            pcb.strideClass = c;
+        } else {
+            pcb.stridePass = Math.max(pcb.stridePass, classVirtualTime[c]);
+        }
+        classes[c].add(pcb);
+        pcb.queuedOn = this;
+        size++;
+    }
+
+    @Override
+    public PCB PickNext() {
+        int best = -1;
+        for (int c = 0; c < classes.length; c++) {
+            if (!classes[c].isEmpty() && (best < 0 || classPass[c] < classPass[best])) {
+                best = c;
+            }
+        }
+        if (best < 0) {
+            return null;
+        }
+        globalPass = classPass[best];
+
+        PCB next = classes[best].pollFirst();
+        classVirtualTime[best] = next.stridePass;
+        next.queuedOn = null;
+        size--;
+        return next;
+    }
+
+    /**
+     * Advances the passes of the process and of the class it was picked from
+     * in proportion to the CPU time it used.
+     */
+    @Override
+    public void Charge(PCB pcb, long ranNanos) {
+        int c = pcb.strideClass;
+        if (c < 0 || ranNanos <= 0) {
+            return;     // not picked by this policy (stolen processes start over)
+        }
+        classPass[c] += ranNanos * classStride / classTickets[c];
+        pcb.stridePass += ranNanos * processStride / Weight(pcb.nice);
+    }
+
+    /**
+     * Gives away the process that is furthest from running in the
+     * highest-priority non-empty class. It starts over on the thief's CPU.
+     */
+    @Override
+    public PCB StealOne() {
+        for (TreeSet<PCB> set : classes) {
+            if (!set.isEmpty()) {
+                PCB stolen = set.pollLast();
+                stolen.queuedOn = null;
+                stolen.strideClass = -1;
+                size--;
+                return stolen;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean Remove(PCB pcb) {
+        if (pcb.queuedOn != this || !classes[pcb.strideClass].remove(pcb)) {
+            return false;
+        }
+        pcb.queuedOn = null;
+        size--;
+        return true;
+    }
+
+    @Override
+    public int Size() {
+        return size;
+    }
+
+    @Override
+    public int Size(OS.PriorityType priority) {
+        return classes[priority.ordinal()].size();
+    }
+
+    @Override
+    public void AppendQueues(StringBuilder sb) {
+        for (OS.PriorityType p : OS.priorityTypes) {
+            sb.append(SchedulingPolicy.QueueLabel(p));
+            for (PCB pcb : classes[p.ordinal()]) {
+                sb.append(pcb.pid).append(' ');
+            }
+            sb.append('\n');
+        }
+    }
+
+    @Override
+    public String Name() {
+        return "stride";
+    }
+}
@@ -0,0 +1,68 @@
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * SyscallFrame class.
+ * -------------------
+ * A preallocated, per-process argument/result block for system calls.
+ * Every PCB owns exactly one frame; the OS wrappers fill it on the caller's
+ * thread, the Kernel reads the arguments and writes the results back into
+ * the same frame. Because integer arguments are stored in primitive fields,
+ * a system call no longer boxes its parameters or allocates a List.
+ *
+ * A frame belongs to one process, so a call that is still pending (for example
+ * a WaitForMessage that has not been answered yet) can never be overwritten by
+ * another process's call.
+ */
+public class SyscallFrame {
+    // Process that owns this frame, or null for the boot frame used by OS.Startup()
+    public final PCB owner;
+
+    // The system call requested through this frame
+    public OS.CallType call;
+
+    // Primitive integer arguments (ids, sizes, addresses, priority ordinals)
+    public int intArg0;
+    public int intArg1;
+    public int intArg2;
+
+    // Primitive long argument (durations in nanoseconds)
+    public long longArg0;
+
+    // Reference argument (String, byte[], KernelMessage or UserlandProcess)
+    public Object refArg;
+
+    // Results written by the kernel
+    public int intResult;
+    public boolean boolResult;
+    public Object refResult;
+
+    // System.nanoTime() when the frame was submitted to the kernel (for SyscallStats)
+    public long submitNanos;
+
+    // Set by the kernel once the results above are valid
+    public volatile boolean complete;
+
+    // Thread parked in OS until this frame completes (only used by the boot frame)
+    public volatile Thread waiter;
+
+    /**
+     * Constructor.
+     * @param owner the PCB this frame belongs to, or null for the boot frame
+     * @return void
+     */
+    public SyscallFrame(PCB owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * Marks the results as valid and wakes the thread waiting for them, if any.
+     * @return void
+     */
+    public void markComplete() {
+        complete = true;
+        Thread t = waiter;
+        if (t != null) {
+            LockSupport.unpark(t);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/**
+ * SyscallRing class.
+ * ------------------
+ * A submission/completion ring for batching device system calls, in the
+ * spirit of io_uring. A process queues several Open/Seek/Read/Write/Close
+ * operations with the Prep* methods and hands the whole batch to the kernel
+ * with OS.SubmitRing(). The kernel drains every queued entry in a single
+ * dispatch, so a batch costs one kernel entry instead of one per operation.
+ *
+ * Submission and completion slots share the same index: the value returned
+ * by a Prep* call is the index to look up in the completion arrays.
+ *
+ * Completion values:
+ *   - Open  : the process file descriptor, or -1 on failure
+ *   - Write : the number of bytes written, or -1 on failure
+ *   - Read  : 0 and the data in refResults[i], or -1 on failure
+ *   - Seek / Close : 0 on success, -1 on failure
+ *
+ * All arrays are allocated once, so a ring can be reused for many batches.
+ */
+public class SyscallRing {
+    // Submission queue: the call, its integer arguments and its reference argument
+    final OS.CallType[] calls;
+    final int[] intArg0;
+    final int[] intArg1;
+    final Object[] refArgs;
+
+    // Completion queue: integer result and reference result (data returned by Read)
+    public final int[] results;
+    public final Object[] refResults;
+
+    // Number of entries queued since the last reset
+    private int submitted = 0;
+
+    /**
+     * Constructor.
+     * @param capacity maximum number of operations in one batch
+     * @return void
+     */
+    public SyscallRing(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Ring capacity must be positive");
+        }
+        calls = new OS.CallType[capacity];
+        intArg0 = new int[capacity];
+        intArg1 = new int[capacity];
+        refArgs = new Object[capacity];
+        results = new int[capacity];
+        refResults = new Object[capacity];
+    }
+
+    /** Queues an Open of the given device string. @return the slot index */
+    public int PrepOpen(String s) {
+        return Queue(OS.CallType.Open, 0, 0, s);
+    }
+
+    /** Queues a Close of the given file descriptor. @return the slot index */
+    public int PrepClose(int id) {
+        return Queue(OS.CallType.Close, id, 0, null);
+    }
+
+    /** Queues a Read of size bytes. @return the slot index */
+    public int PrepRead(int id, int size) {
+        return Queue(OS.CallType.Read, id, size, null);
+    }
+
+    /** Queues a Seek to the given position. @return the slot index */
+    public int PrepSeek(int id, int to) {
+        return Queue(OS.CallType.Seek, id, to, null);
+    }
+
+    /** Queues a Write of the given data. @return the slot index */
+    public int PrepWrite(int id, byte[] data) {
+        return Queue(OS.CallType.Write, id, 0, data);
+    }
+
+    /**
+     * Stores one submission entry in the next free slot.
+     * @return int index of the slot used
+     * @throws IllegalStateException if the ring is full
+     */
+    private int Queue(OS.CallType call, int arg0, int arg1, Object ref) {
+        if (submitted == calls.length) {
+            throw new IllegalStateException("Syscall ring is full");
+        }
+        int slot = submitted++;
+        calls[slot] = call;
+        intArg0[slot] = arg0;
+        intArg1[slot] = arg1;
+        refArgs[slot] = ref;
+        return slot;
+    }
+
+    /** @return the number of operations queued in the current batch */
+    public int Size() {
+        return submitted;
+    }
+
+    /**
+     * Empties the ring so it can be reused for the next batch.
+     * Completion values of the previous batch are dropped.
+     */
+    public void Reset() {
+        for (int i = 0; i < submitted; i++) {
+            refArgs[i] = null;
+            refResults[i] = null;
+        }
+        submitted = 0;
+    }
+}
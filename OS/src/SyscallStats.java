@@ -0,0 +1,154 @@
+/**
+ * SyscallStats class.
+ * -------------------
+ * Per-system-call counters and latency histograms recorded by Kernel.main().
+ *
+ * For every OS.CallType the kernel records:
+ *   - how many calls were handled
+ *   - a latency histogram of the time spent running the call in the kernel
+ *   - the total time calls spent blocked in the kernel's queue before being
+ *     dispatched, and the total time spent running in the kernel
+ *
+ * The histogram uses logarithmic buckets with 8 linear sub-buckets per power
+ * of two, so every percentile is accurate to within 12.5%. All storage is
+ * allocated up front; Record() does no allocation and is cheap enough to be
+ * left on permanently. Only the kernel thread calls Record(); userland reads
+ * a copy obtained through OS.GetSyscallStats().
+ */
+public class SyscallStats {
+    // Linear sub-buckets per power of two (must be a power of two)
+    private static final int subBuckets = 8;
+    private static final int subBucketBits = 3;
+
+    // Enough buckets for any non-negative long value in nanoseconds
+    private static final int bucketCount = (64 - subBucketBits + 1) * subBuckets;
+
+    private static final OS.CallType[] callTypes = OS.CallType.values();
+
+    // Indexed by CallType ordinal
+    private final long[] counts = new long[callTypes.length];
+    private final long[] maxNanos = new long[callTypes.length];
+    private final long[] queuedNanos = new long[callTypes.length];    // blocked waiting for the kernel
+    private final long[] runningNanos = new long[callTypes.length];   // running inside the kernel
+    private final long[][] histogram = new long[callTypes.length][bucketCount];
+
+    /**
+     * Records one handled system call. Allocation-free.
+     * @param call the call type
+     * @param queued nanoseconds between submission and dispatch
+     * @param running nanoseconds spent dispatching the call
+     */
+    public void Record(OS.CallType call, long queued, long running) {
+        int i = call.ordinal();
+        counts[i]++;
+        queuedNanos[i] += Math.max(queued, 0);
+        runningNanos[i] += Math.max(running, 0);
+        if (running > maxNanos[i]) {
+            maxNanos[i] = running;
+        }
+        histogram[i][BucketOf(running)]++;
+    }
+
+    /** @return the number of calls of this type handled so far */
+    public long Count(OS.CallType call) {
+        return counts[call.ordinal()];
+    }
+
+    /** @return the longest time one call of this type ran in the kernel, in nanoseconds */
+    public long MaxNanos(OS.CallType call) {
+        return maxNanos[call.ordinal()];
+    }
+
+    /** @return total nanoseconds calls of this type waited before the kernel dispatched them */
+    public long QueuedNanos(OS.CallType call) {
+        return queuedNanos[call.ordinal()];
+    }
+
+    /** @return total nanoseconds calls of this type ran inside the kernel */
+    public long RunningNanos(OS.CallType call) {
+        return runningNanos[call.ordinal()];
+    }
+
+    /**
+     * Returns the given percentile of the in-kernel running time.
+     * @param call the call type
+     * @param percentile a value between 0 and 100 (e.g. 99.9)
+     * @return long the latency in nanoseconds (upper bound of its bucket), or 0 if no calls
+     */
+    public long Percentile(OS.CallType call, double percentile) {
+        int i = call.ordinal();
+        if (counts[i] == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(counts[i] * percentile / 100.0));
+        long seen = 0;
+        for (int b = 0; b < bucketCount; b++) {
+            seen += histogram[i][b];
+            if (seen >= rank) {
+                return Math.min(LowerBound(b + 1) - 1, maxNanos[i]);
+            }
+        }
+        return maxNanos[i];
+    }
+
+    /**
+     * Copies all counters, so the copy can be handed to userland.
+     * @return SyscallStats an independent copy of these statistics
+     */
+    public SyscallStats Snapshot() {
+        SyscallStats copy = new SyscallStats();
+        System.arraycopy(counts, 0, copy.counts, 0, counts.length);
+        System.arraycopy(maxNanos, 0, copy.maxNanos, 0, maxNanos.length);
+        System.arraycopy(queuedNanos, 0, copy.queuedNanos, 0, queuedNanos.length);
+        System.arraycopy(runningNanos, 0, copy.runningNanos, 0, runningNanos.length);
+        for (int i = 0; i < histogram.length; i++) {
+            System.arraycopy(histogram[i], 0, copy.histogram[i], 0, bucketCount);
+        }
+        return copy;
+    }
+
+    /**
+     * Formats a table with one line per call type that has been used.
+     * Latencies are in microseconds, totals in milliseconds.
+     * @return String the report
+     */
+    public String Report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-15s %10s %10s %10s %10s %10s %12s %12s%n",
+                "call", "count", "p50(us)", "p99(us)", "p999(us)", "max(us)", "blocked(ms)", "running(ms)"));
+        for (OS.CallType call : callTypes) {
+            if (Count(call) == 0) {
+                continue;
+            }
+            sb.append(String.format("%-15s %10d %10.1f %10.1f %10.1f %10.1f %12.1f %12.1f%n",
+                    call, Count(call),
+                    Percentile(call, 50) / 1e3, Percentile(call, 99) / 1e3,
+                    Percentile(call, 99.9) / 1e3, MaxNanos(call) / 1e3,
+                    QueuedNanos(call) / 1e6, RunningNanos(call) / 1e6));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Maps a latency to its histogram bucket.
+     * Values below 8 ns get their own bucket; above that, each power of two is split in 8.
+     */
+    private static int BucketOf(long nanos) {
+        if (nanos < subBuckets) {
+            return (int) Math.max(nanos, 0);
+        }
+        int msb = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) ((nanos >>> (msb - subBucketBits)) & (subBuckets - 1));
+        return (msb - subBucketBits + 1) * subBuckets + sub;
+    }
+
+    /** @return the smallest latency that falls into the given bucket */
+    private static long LowerBound(int bucket) {
+        if (bucket < subBuckets) {
+            return bucket;
+        }
+        int msb = bucket / subBuckets + subBucketBits - 1;
+        long sub = bucket % subBuckets;
+        return (subBuckets + sub) << (msb - subBucketBits);
+    }
+}
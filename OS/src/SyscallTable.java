@@ -0,0 +1,134 @@
+/**
+ * SyscallTable class.
+ * -------------------
+ * The kernel's system call table: one handler per OS.CallType, indexed by
+ * the call's ordinal, so Kernel.main() dispatches with a single array load
+ * instead of a switch.
+ *
+ * Handlers are registered with the signature of the kernel method they wrap,
+ * through the Register method named after it (for example RegisterIntInt for
+ * (int, int) -> void or RegisterIntBytesToInt for Write's (int, byte[]) -> int;
+ * one name per signature, so method references never need a cast).
+ * Registration adapts each one to a small Handler that moves the
+ * arguments out of the caller's SyscallFrame and the result back into it,
+ * so integer arguments and results stay primitive from the OS wrapper to
+ * the kernel method and only the reference argument is cast.
+ *
+ * Adding a system call means adding its CallType, its OS wrapper and one
+ * Register*() line in Kernel.RegisterSyscalls().
+ */
+public class SyscallTable {
+    /** A registered entry: reads its arguments from the frame and writes its result back. */
+    public interface Handler {
+        void Invoke(SyscallFrame frame);
+    }
+
+    // Typed handler signatures. "Ref" is the frame's reference argument or result.
+    public interface NoArgs { void Call(); }
+    public interface NoArgsToInt { int Call(); }
+    public interface NoArgsToRef { Object Call(); }
+    public interface IntArg { void Call(int a); }
+    public interface LongArg { void Call(long a); }
+    public interface IntToInt { int Call(int a); }
+    public interface IntToBool { boolean Call(int a); }
+    public interface IntToRef { Object Call(int a); }
+    public interface IntIntArgs { void Call(int a, int b); }
+    public interface IntIntToBool { boolean Call(int a, int b); }
+    public interface IntIntToRef { Object Call(int a, int b); }
+    public interface IntIntIntToBool { boolean Call(int a, int b, int c); }
+    public interface IntBytesToInt { int Call(int a, byte[] data); }
+    public interface RefArg<T> { void Call(T ref); }
+    public interface RefToInt<T> { int Call(T ref); }
+    public interface RefIntToInt<T> { int Call(T ref, int a); }
+
+    private final Handler[] handlers = new Handler[OS.CallType.values().length];
+
+    /**
+     * Executes the handler registered for the frame's call.
+     * @param frame the caller's syscall frame
+     * @return void
+     * @throws IllegalStateException if no handler is registered for the call
+     */
+    public void Invoke(SyscallFrame frame) {
+        Handler h = handlers[frame.call.ordinal()];
+        if (h == null) {
+            throw new IllegalStateException("No kernel handler registered for " + frame.call);
+        }
+        h.Invoke(frame);
+    }
+
+    /**
+     * Installs an already adapted handler.
+     * @throws IllegalStateException if the call already has a handler
+     */
+    public void Register(OS.CallType call, Handler handler) {
+        if (handlers[call.ordinal()] != null) {
+            throw new IllegalStateException("Kernel handler for " + call + " registered twice");
+        }
+        handlers[call.ordinal()] = handler;
+    }
+
+    public void RegisterNoArgs(OS.CallType call, NoArgs h) {
+        Register(call, f -> h.Call());
+    }
+
+    public void RegisterNoArgsToInt(OS.CallType call, NoArgsToInt h) {
+        Register(call, f -> f.intResult = h.Call());
+    }
+
+    public void RegisterNoArgsToRef(OS.CallType call, NoArgsToRef h) {
+        Register(call, f -> f.refResult = h.Call());
+    }
+
+    public void RegisterInt(OS.CallType call, IntArg h) {
+        Register(call, f -> h.Call(f.intArg0));
+    }
+
+    public void RegisterLong(OS.CallType call, LongArg h) {
+        Register(call, f -> h.Call(f.longArg0));
+    }
+
+    public void RegisterIntToInt(OS.CallType call, IntToInt h) {
+        Register(call, f -> f.intResult = h.Call(f.intArg0));
+    }
+
+    public void RegisterIntToBool(OS.CallType call, IntToBool h) {
+        Register(call, f -> f.boolResult = h.Call(f.intArg0));
+    }
+
+    public void RegisterIntToRef(OS.CallType call, IntToRef h) {
+        Register(call, f -> f.refResult = h.Call(f.intArg0));
+    }
+
+    public void RegisterIntInt(OS.CallType call, IntIntArgs h) {
+        Register(call, f -> h.Call(f.intArg0, f.intArg1));
+    }
+
+    public void RegisterIntIntToBool(OS.CallType call, IntIntToBool h) {
+        Register(call, f -> f.boolResult = h.Call(f.intArg0, f.intArg1));
+    }
+
+    public void RegisterIntIntToRef(OS.CallType call, IntIntToRef h) {
+        Register(call, f -> f.refResult = h.Call(f.intArg0, f.intArg1));
+    }
+
+    public void RegisterIntIntIntToBool(OS.CallType call, IntIntIntToBool h) {
+        Register(call, f -> f.boolResult = h.Call(f.intArg0, f.intArg1, f.intArg2));
+    }
+
+    public void RegisterIntBytesToInt(OS.CallType call, IntBytesToInt h) {
+        Register(call, f -> f.intResult = h.Call(f.intArg0, (byte[]) f.refArg));
+    }
+
+    public <T> void RegisterRef(OS.CallType call, Class<T> refType, RefArg<T> h) {
+        Register(call, f -> h.Call(refType.cast(f.refArg)));
+    }
+
+    public <T> void RegisterRefToInt(OS.CallType call, Class<T> refType, RefToInt<T> h) {
+        Register(call, f -> f.intResult = h.Call(refType.cast(f.refArg)));
+    }
+
+    public <T> void RegisterRefIntToInt(OS.CallType call, Class<T> refType, RefIntToInt<T> h) {
+        Register(call, f -> f.intResult = h.Call(refType.cast(f.refArg), f.intArg0));
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * TestDevice_SyscallRing Class
+ * ----------------------------
+ * Same workload as TestDevice_MultipleProcess, but every phase is submitted
+ * through a SyscallRing instead of one system call per operation.
+ *
+ * Specifically, it:
+ * 1. Opens 5 files in one batch.
+ * 2. Seeks and appends to every file in one batch (10 operations).
+ * 3. Seeks to the start and reads every file back in one batch (10 operations).
+ * 4. Closes all files in one batch.
+ *
+ * Expected Output:
+ *   - Each file shows its appended "Goodbye Ring: X" text.
+ *   - The summary line reports 30 operations for 4 kernel entries,
+ *     where the per-call version needs one kernel entry per operation.
+ */
+public class TestDevice_SyscallRing extends UserlandProcess {
+    @Override
+    public void main() {
+        final int files = 5;
+        int[] fds = new int[files];
+        int operations = 0;
+        int kernelEntries = 0;
+        SyscallRing ring = new SyscallRing(2 * files);
+
+        // --- Step 1: Open all files in one batch ---
+        for (int i = 0; i < files; i++) {
+            ring.PrepOpen("file ring" + i + ".txt");
+        }
+        operations += OS.SubmitRing(ring);
+        kernelEntries++;
+        for (int i = 0; i < files; i++) {
+            fds[i] = ring.results[i];
+            System.out.println((fds[i] == -1 ? "Open failed" : "Open success") + " ring" + i + ".txt");
+        }
+        ring.Reset();
+
+        // --- Step 2: Seek + Write every file in one batch ---
+        for (int i = 0; i < files; i++) {
+            ring.PrepSeek(fds[i], 15);
+            ring.PrepWrite(fds[i], ("Goodbye Ring: " + i).getBytes());
+        }
+        operations += OS.SubmitRing(ring);
+        kernelEntries++;
+        for (int i = 0; i < files; i++) {
+            int written = ring.results[2 * i + 1];
+            System.out.println(written < 0 ? "Write failed ring" + i + ".txt"
+                    : "Appended " + written + " bytes to ring" + i + ".txt");
+        }
+        ring.Reset();
+
+        // --- Step 3: Seek + Read every file in one batch ---
+        int[] readSlots = new int[files];
+        for (int i = 0; i < files; i++) {
+            ring.PrepSeek(fds[i], 0);
+            readSlots[i] = ring.PrepRead(fds[i], 32);
+        }
+        operations += OS.SubmitRing(ring);
+        kernelEntries++;
+        for (int i = 0; i < files; i++) {
+            byte[] data = (byte[]) ring.refResults[readSlots[i]];
+            if (data != null) {
+                System.out.println("ring" + i + ".txt contents: " + new String(data));
+            }
+        }
+        ring.Reset();
+
+        // --- Step 4: Close all files in one batch ---
+        for (int i = 0; i < files; i++) {
+            ring.PrepClose(fds[i]);
+        }
+        operations += OS.SubmitRing(ring);
+        kernelEntries++;
+        ring.Reset();
+
+        System.out.println("Syscall ring: " + operations + " operations in " + kernelEntries + " kernel entries");
+        OS.Exit();
+    }
+}
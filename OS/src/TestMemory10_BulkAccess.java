@@ -0,0 +1,107 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * TestMemory10_BulkAccess
+ *
+ * PURPOSE:
+ * Checks the bulk virtual-memory API of Hardware (ReadBlock, WriteBlock,
+ * Fill, ReadInt/WriteInt, ReadLong/WriteLong) and VirtualIntArray against
+ * the byte-at-a-time Read/Write, especially across page boundaries.
+ *
+ * WHAT IT DOES:
+ * 1. Allocates 8 virtual pages.
+ * 2. Writes a pattern of almost 3 pages starting in the middle of page 0 with one
+ *    WriteBlock, and reads it back byte by byte and with ReadBlock.
+ * 3. Fills a range spanning two pages and checks its edges stay untouched.
+ * 4. Writes ints and longs that straddle a page boundary.
+ * 5. Round-trips a ByteBuffer.
+ * 6. Copies 1000 ints into a VirtualIntArray and reads them back.
+ *
+ * PASS CONDITION:
+ * - Every check prints PASS.
+ */
+public class TestMemory10_BulkAccess extends UserlandProcess {
+
+    @Override
+    public void main() {
+
+        System.out.println("\n===== Test 10: Bulk Memory Access =====");
+
+        int pages = 8;
+        int page = Hardware.sizeOfPage;
+        int base = OS.AllocateMemory(page * pages);
+
+        // Step 1 — one block write across three pages, checked byte by byte
+        byte[] pattern = new byte[3 * page - 100];
+        for (int i = 0; i < pattern.length; i++) {
+            pattern[i] = (byte) (i * 7 + 3);
+        }
+        int start = base + page / 2 + 200;
+        Hardware.WriteBlock(start, pattern, 0, pattern.length);
+        boolean same = true;
+        for (int i = 0; i < pattern.length; i++) {
+            if (Hardware.Read(start + i) != pattern[i]) {
+                same = false;
+            }
+        }
+        Check("WriteBlock matches byte reads", same);
+        Check("ReadBlock round trip", Arrays.equals(pattern, Hardware.ReadBlock(start, pattern.length)));
+
+        // Step 2 — fill across a page boundary, neighbours untouched
+        int fillStart = base + 4 * page - 10;
+        Hardware.Write(fillStart - 1, (byte) 1);
+        Hardware.Write(fillStart + 20, (byte) 2);
+        Hardware.Fill(fillStart, 20, (byte) 42);
+        byte[] filled = Hardware.ReadBlock(fillStart - 1, 22);
+        boolean fillOk = filled[0] == 1 && filled[21] == 2;
+        for (int i = 1; i <= 20; i++) {
+            fillOk &= filled[i] == 42;
+        }
+        Check("Fill across a page boundary", fillOk);
+
+        // Step 3 — ints and longs straddling a page boundary
+        int edge = base + 5 * page;
+        Hardware.WriteInt(edge - 2, 0x12345678);
+        Hardware.WriteLong(edge + 100, 0x1122334455667788L);
+        Check("int across pages", Hardware.ReadInt(edge - 2) == 0x12345678);
+        Check("int byte order", Hardware.Read(edge - 2) == 0x78 && Hardware.Read(edge + 1) == 0x12);
+        Hardware.WriteLong(edge - 3, -2L);
+        Check("long in one page", Hardware.ReadLong(edge + 100) == 0x1122334455667788L);
+        Check("long across pages", Hardware.ReadLong(edge - 3) == -2L);
+        Check("little-endian layout", Hardware.Read(edge + 100) == (byte) 0x88);
+
+        // Step 4 — ByteBuffer round trip
+        ByteBuffer out = ByteBuffer.allocate(page + page / 2);
+        for (int i = 0; i < out.capacity(); i++) {
+            out.put((byte) (255 - i));
+        }
+        out.flip();
+        Hardware.WriteBlock(base + 6 * page + page / 2, out);
+        ByteBuffer in = ByteBuffer.allocate(out.capacity());
+        Hardware.ReadBlock(base + 6 * page + page / 2, in);
+        out.flip();
+        in.flip();
+        Check("ByteBuffer round trip", out.equals(in));
+
+        // Step 5 — VirtualIntArray
+        VirtualIntArray array = VirtualIntArray.Allocate(1000);
+        int[] values = new int[1000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i * i - 500;
+        }
+        array.CopyFrom(values, 0, 0, values.length);
+        array.Set(999, 123456);
+        values[999] = 123456;
+        Check("VirtualIntArray Get", array.Get(300) == 300 * 300 - 500);
+        Check("VirtualIntArray ToArray", Arrays.equals(values, array.ToArray()));
+        array.Free();
+
+        OS.FreeMemory(base, page * pages);
+        OS.Exit();
+    }
+
+    private void Check(String name, boolean ok) {
+        System.out.println((ok ? "✔ PASS — " : "✘ FAIL — ") + name);
+    }
+}
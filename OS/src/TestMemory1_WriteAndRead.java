@@ -10,8 +10,9 @@ public class TestMemory1_WriteAndRead extends UserlandProcess{
 
     @Override
     public void main() {
+        int pageSize = Hardware.sizeOfPage;
         System.out.println("\n--- Test 1: Write and Read ---");
-        int addr = OS.AllocateMemory(1024 * 10);
+        int addr = OS.AllocateMemory(pageSize * 10);
 
         for (int i = 0; i < 26; i++) {
             Hardware.Write(addr + i, (byte)(65 + i)); // Write A, B, C...
@@ -12,8 +12,9 @@ public class TestMemory2_AllocateMemoryTwice extends UserlandProcess {
 
     @Override
     public void main() {
-        int addr1 = OS.AllocateMemory(1024 * 2); // 2 pages
-        int addr2 = OS.AllocateMemory(1024 * 3); // 3 pages
+        int pageSize = Hardware.sizeOfPage;
+        int addr1 = OS.AllocateMemory(pageSize * 2); // 2 pages
+        int addr2 = OS.AllocateMemory(pageSize * 3); // 3 pages
 
         Hardware.Write(addr1, (byte)10);
         Hardware.Write(addr2, (byte)20);
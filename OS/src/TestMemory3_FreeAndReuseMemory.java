@@ -13,10 +13,11 @@ public class TestMemory3_FreeAndReuseMemory extends UserlandProcess{
 
     @Override
     public void main() {
-        int addr1 = OS.AllocateMemory(1024 * 2);
-        OS.FreeMemory(addr1, 1024 * 2);
+        int pageSize = Hardware.sizeOfPage;
+        int addr1 = OS.AllocateMemory(pageSize * 2);
+        OS.FreeMemory(addr1, pageSize * 2);
 
-        int addr2 = OS.AllocateMemory(1024 * 2);
+        int addr2 = OS.AllocateMemory(pageSize * 2);
 
         System.out.println("\n--- Test 3: Free and Reuse ---");
         System.out.println("Addr1: " + addr1 + " | Addr2: " + addr2);
@@ -6,7 +6,7 @@
  * TLB misses, mappings, and possible replacements.
  *
  * The test performs the following steps:
- * 1. Allocates three virtual pages (3 KB total).
+ * 1. Allocates three virtual pages.
  * 2. Accesses each page to trigger TLB misses and generate mappings.
  * 3. Prints the TLB after each access to visualize its state.
  * 4. Re-accesses previous pages to test for hits, consistency, and
@@ -21,10 +21,11 @@ public class TestMemory5_VirtualPaging extends UserlandProcess{
 
     @Override
     public void main() {
+        int pageSize = Hardware.sizeOfPage;
         System.out.println("\n--- Test 5: Complex TLB Mapping and Replacement ---");
 
-        // allocate 3 pages (3KB)
-        int base = OS.AllocateMemory(1024 * 3);
+        // allocate 3 pages
+        int base = OS.AllocateMemory(pageSize * 3);
 
         // Access first page — expect MISS and mapping to some physical page
         int addr1 = base;
@@ -35,7 +36,7 @@ public class TestMemory5_VirtualPaging extends UserlandProcess{
         System.out.println("First access (expected TLB miss): value=" + val1);
 
         // Access second page — different virtual page, should map to another physical frame
-        int addr2 = base + 1024;
+        int addr2 = base + pageSize;
         Hardware.Write(addr2, (byte) 20);
         byte val2 = Hardware.Read(addr2);
         System.out.println("Second page access (expected TLB miss): value=" + val2);
@@ -58,7 +59,7 @@ public class TestMemory5_VirtualPaging extends UserlandProcess{
         System.out.println("Re-access second page (check consistency): value=" + val5);
         Hardware.PrintTLB();
 
-        OS.FreeMemory(base, 1024 * 3);
+        OS.FreeMemory(base, pageSize * 3);
         OS.Exit();
     }
 }
@@ -22,18 +22,19 @@ public class TestMemory6_PageSwapBasic extends UserlandProcess {
 
     @Override
     public void main() {
+        int pageSize = Hardware.sizeOfPage;
         System.out.println("\n===== Test 6: Forced Page Swap + Reload Test =====");
 
         // We create MANY pages to guarantee swap-out.
-        // A single process has 100 virtual pages; physical memory has 1024 pages.
+        // A single process has PCB.virtualPages virtual pages; physical memory has many more frames.
         // To force swapping in one process, we repeatedly allocate and touch pages.
-        int base = OS.AllocateMemory(1024 * 80);    // 80 pages accessed
+        int base = OS.AllocateMemory(pageSize * 80);    // 80 pages accessed
 
-        System.out.println("Allocated 80 KB (80 pages).");
+        System.out.println("Allocated 80 pages of " + pageSize + " bytes.");
 
         // Write unique values to many pages
         for (int i = 0; i < 80; i++) {
-            int addr = base + (i * 1024);
+            int addr = base + (i * pageSize);
             byte value = (byte)(10 + i);
 
             Hardware.Write(addr, value);
@@ -44,7 +45,7 @@ public class TestMemory6_PageSwapBasic extends UserlandProcess {
 
         // Now re-access a page that is VERY likely swapped out
         int victimPage = 5;    // pick page 5 (arbitrary)
-        int victimAddr = base + (victimPage * 1024);
+        int victimAddr = base + (victimPage * pageSize);
         byte reread = Hardware.Read(victimAddr);
 
         System.out.println("\nRe-read page " + victimPage + " → value: " + reread);
@@ -62,7 +63,7 @@ public class TestMemory6_PageSwapBasic extends UserlandProcess {
 
         System.out.println("===== End of TestMemory6 =====\n");
 
-        OS.FreeMemory(base, 1024 * 80);
+        OS.FreeMemory(base, pageSize * 80);
         /*
         //result check
         try {
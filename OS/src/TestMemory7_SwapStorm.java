@@ -20,19 +20,20 @@ public class TestMemory7_SwapStorm extends UserlandProcess {
 
     @Override
     public void main() {
+        int pageSize = Hardware.sizeOfPage;
 
         System.out.println("\n===== Test 7: Swap Storm Stress Test =====");
 
         // 120 pages = more than your “100 pages per process” limit,
         // but AllocateMemory only allocates as much as the process supports.
-        int pages = 100;   // supports 100 pages per process
-        int base = OS.AllocateMemory(1024 * pages);
+        int pages = PCB.virtualPages;   // every page a process can have
+        int base = OS.AllocateMemory(pageSize * pages);
 
         System.out.println("Allocated " + pages + " virtual pages.");
 
         // Step 1 — write values to all pages
         for (int i = 0; i < pages; i++) {
-            int addr = base + (i * 1024);
+            int addr = base + (i * pageSize);
             byte value = (byte)(50 + i);    // predictable pattern
             Hardware.Write(addr, value);
         }
@@ -47,7 +48,7 @@ public class TestMemory7_SwapStorm extends UserlandProcess {
         for (int k = 0; k < 60; k++) {
 
             int page = rng.nextInt(pages);        // random page 0–99
-            int addr = base + (page * 1024);
+            int addr = base + (page * pageSize);
             byte expected = (byte)(50 + page);
 
             byte actual = Hardware.Read(addr);
@@ -74,7 +75,7 @@ public class TestMemory7_SwapStorm extends UserlandProcess {
 
         System.out.println("===== End of TestMemory7 =====");
 
-        OS.FreeMemory(base, 1024 * pages);
+        OS.FreeMemory(base, pageSize * pages);
         OS.Exit();
     }
 }
@@ -15,12 +15,13 @@ public class TestMemory8_MultiProcessSwap extends UserlandProcess {
 
         @Override
         public void main() {
-            int pages = 100; // PCB limit
-            int base = OS.AllocateMemory(1024 * pages);
+            int pageSize = Hardware.sizeOfPage;
+            int pages = PCB.virtualPages; // PCB limit
+            int base = OS.AllocateMemory(pageSize * pages);
 
             // touch all pages so they get mapped into RAM
             for (int i = 0; i < pages; i++) {
-                int addr = base + i * 1024;
+                int addr = base + i * pageSize;
                 Hardware.Write(addr, (byte)(id)); // tag with hog id
             }
 
@@ -32,10 +33,12 @@ public class TestMemory8_MultiProcessSwap extends UserlandProcess {
 
     @Override
     public void main() {
+        int pageSize = Hardware.sizeOfPage;
         System.out.println("\n===== Test 8: Multi-Process Swap Stress =====");
 
-        // 1) Spawn enough hogs to exceed 1024 physical pages
-        int hogCount = 12; // 12*100 = 1200 pages > 1024 frames
+        // 1) Spawn enough hogs to exceed the physical frames
+        int frames = (int) (Hardware.memorySize / pageSize);
+        int hogCount = frames / PCB.virtualPages + 2; // 1 MB of 1 KB pages: 12*100 = 1200 pages > 1024 frames
         for (int i = 0; i < hogCount; i++) {
             OS.CreateProcess(new MemoryHog(i + 1), OS.PriorityType.background);
         }
@@ -45,10 +48,10 @@ public class TestMemory8_MultiProcessSwap extends UserlandProcess {
 
         // 2) Main allocates some pages and writes known values
         int myPages = 20;
-        int myBase = OS.AllocateMemory(1024 * myPages);
+        int myBase = OS.AllocateMemory(pageSize * myPages);
 
         for (int i = 0; i < myPages; i++) {
-            int addr = myBase + i * 1024;
+            int addr = myBase + i * pageSize;
             Hardware.Write(addr, (byte)(50 + i));
         }
         System.out.println("Main wrote values to its pages.");
@@ -56,7 +59,7 @@ public class TestMemory8_MultiProcessSwap extends UserlandProcess {
         // 3) Re-read under pressure: should trigger swap-ins
         boolean allCorrect = true;
         for (int i = 0; i < myPages; i++) {
-            int addr = myBase + i * 1024;
+            int addr = myBase + i * pageSize;
             byte expected = (byte)(50 + i);
             byte actual = Hardware.Read(addr);
 
@@ -74,7 +77,7 @@ public class TestMemory8_MultiProcessSwap extends UserlandProcess {
             System.out.println("✘ TEST FAILED — data corruption under multi-process swap.");
         }
 
-        OS.FreeMemory(myBase, 1024 * myPages);
+        OS.FreeMemory(myBase, pageSize * myPages);
         OS.Exit();
     }
 }
@@ -27,35 +27,36 @@ public class TestMemory9_ModifyAfterSwap extends UserlandProcess {
 
     @Override
     public void main() {
+        int pageSize = Hardware.sizeOfPage;
 
         System.out.println("\n===== Test 9: Modify-After-Swap =====");
 
-        int pages = 100;
-        int base = OS.AllocateMemory(1024 * pages);
+        int pages = PCB.virtualPages;
+        int base = OS.AllocateMemory(pageSize * pages);
 
         // Step 1 — write predictable values
         for (int i = 0; i < pages; i++) {
-            Hardware.Write(base + i * 1024, (byte)(30 + i));
+            Hardware.Write(base + i * pageSize, (byte)(30 + i));
         }
 
         // Step 2 — force swaps by touching every page twice
         for (int r = 0; r < 2; r++) {
             for (int i = 0; i < pages; i++) {
-                Hardware.Read(base + i * 1024);
+                Hardware.Read(base + i * pageSize);
             }
         }
 
         // Step 3 — pick a page and modify it AFTER swap-outs
         int target = 37;
-        Hardware.Write(base + target * 1024, (byte)99);
+        Hardware.Write(base + target * pageSize, (byte)99);
 
         // Step 4 — cause more swapping
         for (int i = 0; i < pages; i++) {
-            Hardware.Read(base + i * 1024);
+            Hardware.Read(base + i * pageSize);
         }
 
         // Step 5 — verify the modified page persisted
-        byte actual = Hardware.Read(base + target * 1024);
+        byte actual = Hardware.Read(base + target * pageSize);
 
         if (actual == 99) {
             System.out.println("✔ TEST PASSED — modified page survived swapping.");
@@ -63,7 +64,7 @@ public class TestMemory9_ModifyAfterSwap extends UserlandProcess {
             System.out.println("✘ TEST FAILED — expected 99, got " + actual);
         }
 
-        OS.FreeMemory(base, 1024 * pages);
+        OS.FreeMemory(base, pageSize * pages);
         OS.Exit();
     }
 }
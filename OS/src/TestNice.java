@@ -0,0 +1,32 @@
+/**
+ * TestNice process.
+ * An interactive test program that sets its nice value and then yields
+ * many times, printing its progress every few steps. Started several times
+ * with different nice values in the same priority class, the one with the
+ * lowest nice value gets the most turns per round and finishes first, but
+ * the others keep stepping in every round instead of waiting for it.
+ */
+public class TestNice extends UserlandProcess {
+    private static final int steps = 100;
+    private static final int reportEvery = 10;
+
+    private final int nice;
+
+    public TestNice(int nice) {
+        this.nice = nice;
+    }
+
+    @Override
+    public void main() {
+        if (!OS.SetNice(nice)) {
+            System.out.println("SetNice(" + nice + ") rejected (pid=" + OS.GetPID() + ")");
+        }
+        for (int i = 0; i < steps; i++) {
+            if (i % reportEvery == 0) {
+                System.out.println("nice " + nice + " step " + i + " (pid=" + OS.GetPID() + ")");
+            }
+            OS.SwitchProcess();   // yield: a better nice value runs again until its turns are used up
+        }
+        System.out.println("nice " + nice + " finished (pid=" + OS.GetPID() + ")");
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * TestPeriodicTask process.
+ * A periodic realtime test program: it asks for a runtime budget every
+ * period (OS.SetRealtimeParams), works for part of that budget in every job
+ * and then waits for its next release with OS.SleepUntilNextPeriod().
+ * At the end it reports how many periods were lost to missed deadlines and
+ * how late, at worst, a job started after its release.
+ * If admission control rejects the parameters it says so and exits.
+ */
+public class TestPeriodicTask extends UserlandProcess {
+    private final String label;         // label to identify the process in output
+    private final int runtimeMicros;    // budget per period
+    private final int periodMicros;     // period (the deadline is the end of the period)
+    private final int workMillis;       // CPU time used per job
+    private final int jobs;             // number of jobs to run
+
+    public TestPeriodicTask(String label, int runtimeMicros, int periodMicros, int workMillis, int jobs) {
+        this.label = label;
+        this.runtimeMicros = runtimeMicros;
+        this.periodMicros = periodMicros;
+        this.workMillis = workMillis;
+        this.jobs = jobs;
+    }
+
+    @Override
+    public void main() {
+        if (!OS.SetRealtimeParams(runtimeMicros, periodMicros, periodMicros)) {
+            System.out.println(label + " rejected by admission control (pid=" + OS.GetPID() + ")");
+            return;
+        }
+        long firstRelease = System.nanoTime();
+        long worstLatency = 0;
+        int lost = 0;
+        for (int job = 0; job < jobs; job++) {
+            // releases are exactly one period apart, so this does not drift
+            long release = firstRelease + (long) (job + lost) * periodMicros * 1_000L;
+            worstLatency = Math.max(worstLatency, System.nanoTime() - release);
+
+            for (int i = 0; i < workMillis; i++) {
+                try {
+                    Thread.sleep(1);    // one millisecond of "work"
+                } catch (InterruptedException e) {}
+                cooperate();
+            }
+            lost += OS.SleepUntilNextPeriod();
+        }
+        System.out.println(label + " finished " + jobs + " jobs, " + lost + " periods lost, worst release latency "
+                + (worstLatency / 1_000) / 1000.0 + " ms (pid=" + OS.GetPID() + ")");
+    }
+}
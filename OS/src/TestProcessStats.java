@@ -0,0 +1,30 @@
+/**
+ * TestProcessStats process.
+ * A small "top": every interval it prints the scheduler accounting of all
+ * processes (OS.GetAllProcessStats()) followed by the run-queue length and
+ * load averages from OS.GetSchedulerMetrics(). Run it next to some busy and
+ * sleeping processes to see user, kernel and wait time and the switch counts grow.
+ * Load averages are sampled every 5 s, so they read 0.00 until the first sample.
+ */
+public class TestProcessStats extends UserlandProcess {
+    private final int samples;          // number of reports to print
+    private final int intervalMillis;   // time between reports
+
+    public TestProcessStats(int samples, int intervalMillis) {
+        this.samples = samples;
+        this.intervalMillis = intervalMillis;
+    }
+
+    @Override
+    public void main() {
+        for (int i = 0; i < samples; i++) {
+            OS.Sleep(intervalMillis);
+            SchedulerMetrics metrics = OS.GetSchedulerMetrics();
+            System.out.print(ProcessStats.Table(OS.GetAllProcessStats()));
+            System.out.printf("run queue %d, load average %.2f %.2f %.2f%n%n", metrics.runQueueLength,
+                    metrics.loadAverage[0], metrics.loadAverage[1], metrics.loadAverage[2]);
+        }
+        ProcessStats me = OS.GetProcessStats(OS.GetPID());
+        System.out.print("Process stats finished\n" + ProcessStats.Header() + me.Line());
+    }
+}
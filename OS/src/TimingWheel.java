@@ -0,0 +1,257 @@
+/**
+ * TimingWheel class.
+ * ------------------
+ * Hierarchical timing wheel holding the sleeping processes, keyed on
+ * System.nanoTime() (monotonic, so wall-clock changes do not affect it).
+ *
+ * Time is cut into ticks of tickNanos. The wheel has `levels` rings of 64
+ * slots; a slot of level l covers 64^l ticks. A timer goes into the lowest
+ * level whose range reaches its expiry. Whenever the current tick crosses a
+ * level-l slot boundary, that slot is emptied and its timers are re-added,
+ * landing in lower levels ("cascading"), until they reach level 0 and expire.
+ *
+ * - Add(pcb, deadline)  O(1): pushes the PCB into a slot list (links live in the PCB)
+ * - Remove(pcb)         O(1): unlinks it
+ * - Advance(now)        expires every timer whose tick is over; empty
+ *                       stretches are skipped using one bitmap per level
+ * - NextDeadline()      when Advance() next has work to do (an expiry or a cascade)
+ *
+ * Timers never expire early: a timer fires once its whole tick is in the
+ * past, so it is late by at most one tick plus the caller's polling delay.
+ */
+public class TimingWheel {
+    // Slots per level (64, so one long bitmap per level)
+    private static final int slotBits = 6;
+    private static final int slots = 1 << slotBits;
+    private static final int slotMask = slots - 1;
+
+    private final int levels;
+    private final long tickNanos;
+
+    // System.nanoTime() of tick 0
+    private final long originNanos;
+
+    // First and last PCB of every slot, and the non-empty slots of every level
+    private final PCB[][] heads;
+    private final PCB[][] tails;
+    private final long[] bitmaps;
+
+    // Next tick that has not been expired yet
+    private long currentTick = 0;
+
+    private int size = 0;
+
+    /**
+     * Constructor.
+     * @param tickNanos resolution of the wheel in nanoseconds
+     * @param levels number of levels (the wheel spans 64^levels ticks)
+     * @return void
+     */
+    public TimingWheel(long tickNanos, int levels) {
+        if (tickNanos < 1 || levels < 1 || levels * slotBits > 60) {
+            throw new IllegalArgumentException("Invalid timing wheel geometry");
+        }
+        this.tickNanos = tickNanos;
+        this.levels = levels;
+        this.originNanos = System.nanoTime();
+        heads = new PCB[levels][slots];
+        tails = new PCB[levels][slots];
+        bitmaps = new long[levels];
+    }
+
+    /**
+     * Inserts a sleeping process.
+     * @param pcb the process (must not be in the wheel)
+     * @param deadlineNanos System.nanoTime() at which it should wake up
+     * @return void
+     * @throws IllegalStateException if the PCB is already in the wheel
+     */
+    public void Add(PCB pcb, long deadlineNanos) {
+        if (pcb.timerLevel >= 0) {
+            throw new IllegalStateException("Process " + pcb.pid + " already has a timer");
+        }
+        pcb.wakeupTime = deadlineNanos;
+        Place(pcb);
+        size++;
+    }
+
+    /**
+     * Removes a process before its timer expired.
+     * @param pcb the process
+     * @return boolean true if it was in the wheel
+     */
+    public boolean Remove(PCB pcb) {
+        if (pcb.timerLevel < 0) {
+            return false;
+        }
+        Unlink(pcb);
+        size--;
+        return true;
+    }
+
+    /**
+     * Expires every timer whose tick lies completely before `nowNanos`.
+     * @param nowNanos the current System.nanoTime()
+     * @return PCB the expired processes, linked through PCB.timerNext (null if none)
+     */
+    public PCB Advance(long nowNanos) {
+        // ticks before this one are completely over
+        long endTick = Math.floorDiv(nowNanos - originNanos, tickNanos);
+        PCB expired = null;
+        while (currentTick < endTick) {
+            // cascade every level whose slot boundary is crossed, highest first
+            for (int l = levels - 1; l >= 1; l--) {
+                if ((currentTick & ((1L << (slotBits * l)) - 1)) == 0) {
+                    Cascade(l);
+                }
+            }
+            int slot = (int) (currentTick & slotMask);
+            while (heads[0][slot] != null) {
+                PCB p = heads[0][slot];
+                Unlink(p);
+                size--;
+                p.timerNext = expired;
+                expired = p;
+            }
+            currentTick = NextInterestingTick(endTick);
+        }
+        return expired;
+    }
+
+    /**
+     * Returns when Advance() next has something to do: the end of the earliest
+     * non-empty level-0 tick, or the next boundary of a non-empty higher slot.
+     * @return long a System.nanoTime() value, or Long.MAX_VALUE if the wheel is empty
+     */
+    public long NextDeadline() {
+        if (size == 0) {
+            return Long.MAX_VALUE;
+        }
+        long best = Long.MAX_VALUE;
+        for (int l = 0; l < levels; l++) {
+            if (bitmaps[l] == 0) {
+                continue;
+            }
+            int shift = slotBits * l;
+            long index = currentTick >>> shift;
+            long ahead = Long.rotateRight(bitmaps[l], (int) (index & slotMask));
+            long distance = Long.numberOfTrailingZeros(ahead);
+            long tick;
+            if (l == 0) {
+                tick = currentTick + distance + 1;          // end of the expiring tick
+            } else {
+                if (distance == 0) {
+                    distance = slots;                       // the slot comes round again after a full turn
+                }
+                tick = (index + distance) << shift;         // cascade point
+            }
+            best = Math.min(best, tick);
+        }
+        return originNanos + best * tickNanos;
+    }
+
+    /** @return the number of timers in the wheel */
+    public int Size() {
+        return size;
+    }
+
+    /**
+     * Appends the pids of all sleeping processes, separated by spaces (in no particular order).
+     * @param sb the builder to append to
+     * @return void
+     */
+    public void AppendPids(StringBuilder sb) {
+        for (int l = 0; l < levels; l++) {
+            for (long bits = bitmaps[l]; bits != 0; bits &= bits - 1) {
+                for (PCB p = heads[l][Long.numberOfTrailingZeros(bits)]; p != null; p = p.timerNext) {
+                    sb.append(p.pid).append(' ');
+                }
+            }
+        }
+    }
+
+    /**
+     * Puts a PCB into the slot for its expiry tick (the tick that contains its
+     * wakeupTime), relative to the current tick. Expiries beyond the span of
+     * the wheel wait in the last slot of the top level and are placed again
+     * each time it cascades.
+     */
+    private void Place(PCB pcb) {
+        long tick = Math.max(currentTick, Math.floorDiv(pcb.wakeupTime - originNanos, tickNanos));
+        long delta = tick - currentTick;
+        int level = 0;
+        while (level < levels - 1 && delta >= (1L << (slotBits * (level + 1)))) {
+            level++;
+        }
+        if (delta >= (1L << (slotBits * (level + 1)))) {
+            tick = currentTick + ((long) slotMask << (slotBits * level));
+        }
+        int slot = (int) ((tick >>> (slotBits * level)) & slotMask);
+        pcb.timerLevel = level;
+        pcb.timerSlot = slot;
+        pcb.timerNext = null;
+        pcb.timerPrev = tails[level][slot];
+        if (tails[level][slot] == null) {
+            heads[level][slot] = pcb;
+            bitmaps[level] |= 1L << slot;
+        } else {
+            tails[level][slot].timerNext = pcb;
+        }
+        tails[level][slot] = pcb;
+    }
+
+    /** Unlinks a PCB from its slot. */
+    private void Unlink(PCB pcb) {
+        int level = pcb.timerLevel;
+        int slot = pcb.timerSlot;
+        if (pcb.timerPrev == null) {
+            heads[level][slot] = pcb.timerNext;
+        } else {
+            pcb.timerPrev.timerNext = pcb.timerNext;
+        }
+        if (pcb.timerNext == null) {
+            tails[level][slot] = pcb.timerPrev;
+        } else {
+            pcb.timerNext.timerPrev = pcb.timerPrev;
+        }
+        if (heads[level][slot] == null) {
+            bitmaps[level] &= ~(1L << slot);
+        }
+        pcb.timerPrev = null;
+        pcb.timerNext = null;
+        pcb.timerLevel = -1;
+    }
+
+    /** Re-adds every timer of the level-l slot the current tick has just entered. */
+    private void Cascade(int level) {
+        int slot = (int) ((currentTick >>> (slotBits * level)) & slotMask);
+        PCB p = heads[level][slot];
+        heads[level][slot] = null;
+        tails[level][slot] = null;
+        bitmaps[level] &= ~(1L << slot);
+        while (p != null) {
+            PCB next = p.timerNext;
+            Place(p);
+            p = next;
+        }
+    }
+
+    /**
+     * Returns the next tick that needs a visit: the next one if level 0 has
+     * timers, otherwise the next slot boundary of the lowest non-empty level
+     * (or endTick when the wheel is empty).
+     */
+    private long NextInterestingTick(long endTick) {
+        if (bitmaps[0] != 0) {
+            return currentTick + 1;
+        }
+        for (int l = 1; l < levels; l++) {
+            if (bitmaps[l] != 0) {
+                int shift = slotBits * l;
+                long boundary = ((currentTick >>> shift) + 1) << shift;
+                return Math.min(boundary, endTick);
+            }
+        }
+        return endTick;
+    }
+}
@@ -0,0 +1,293 @@
+import java.util.Arrays;
+
+/**
+ * Tlb class.
+ * ----------
+ * Translation Lookaside Buffer of one simulated CPU: a set-associative cache
+ * of virtual page number -> physical page number translations.
+ * Every entry is tagged with the ASID (address-space identifier) of the
+ * process that loaded it, and only entries of the current ASID match, so
+ * switching processes does not require a flush (see AsidAllocator).
+ *
+ * The entries are split into sets of `ways` entries; a virtual page can only
+ * live in set (vpn mod sets), so a lookup compares at most `ways` entries
+ * whatever the TLB size. When a set is full, the least recently used entry
+ * of the set is replaced.
+ *
+ * Counters (for sizing the TLB to a workload):
+ *   - hits / misses: Lookup() results
+ *   - evictions: valid entries replaced to make room for a new one
+ *   - flushes: Flush() calls (ASID generation rollovers)
+ *
+ * Entry layout: vpns[i] == -1 marks an empty entry.
+ *
+ * The entries are only changed by the kernel thread while the CPU's process
+ * is stopped (or the CPU is idle); Probe() runs on the process's own thread.
+ * Invalidations requested while the process runs in user mode are deferred
+ * (DeferInvalidate*, DeferFlush) and applied by ApplyDeferred() the next
+ * time the kernel has the CPU, like a TLB shootdown interrupt.
+ */
+public class Tlb {
+    private final int sets;
+    private final int ways;
+    private final int setMask;
+
+    // Translation held by every entry and its ASID; entries of set s are [s * ways, (s + 1) * ways)
+    private final int[] vpns;
+    private final int[] ppns;
+    private final int[] asids;
+
+    // ASID of the process running on this CPU
+    private volatile int currentAsid = 0;
+
+    // Last use of every entry, in ticks of useClock (the smallest in a set is the LRU entry)
+    private final long[] lastUse;
+    private long useClock = 0;
+
+    // Invalidations waiting for the CPU to enter the kernel; past the limit the TLB is flushed instead
+    private static final int deferredLimit = 32;
+    private final int[] deferredPpns = new int[deferredLimit];
+    private final int[] deferredAsids = new int[deferredLimit];
+    private int deferredPpnCount = 0;
+    private int deferredAsidCount = 0;
+    private boolean deferredFlush = false;
+
+    public long hits;
+    public long misses;
+    public long evictions;
+    public long flushes;
+
+    /**
+     * Constructor.
+     * @param entries total number of entries (a power of two)
+     * @param ways entries per set (a power of two, at most entries; entries = ways is fully associative)
+     * @return void
+     * @throws IllegalArgumentException if the geometry is not valid
+     */
+    public Tlb(int entries, int ways) {
+        if (Integer.bitCount(entries) != 1 || Integer.bitCount(ways) != 1 || ways > entries) {
+            throw new IllegalArgumentException("TLB entries and ways must be powers of two, ways <= entries");
+        }
+        this.ways = ways;
+        this.sets = entries / ways;
+        this.setMask = sets - 1;
+        vpns = new int[entries];
+        ppns = new int[entries];
+        asids = new int[entries];
+        lastUse = new long[entries];
+        Arrays.fill(vpns, -1);
+        Arrays.fill(ppns, -1);
+    }
+
+    /**
+     * Translates a virtual page number, counting a hit or a miss.
+     * @param vpn the virtual page number
+     * @return int the physical page number, or -1 on a miss
+     */
+    public int Lookup(int vpn) {
+        int ppn = Probe(vpn);
+        if (ppn == -1) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return ppn;
+    }
+
+    /**
+     * Translates a virtual page number without counting it (used to retry
+     * the access that just missed, once the kernel filled the entry).
+     * @param vpn the virtual page number
+     * @return int the physical page number, or -1 if not cached
+     */
+    public int Probe(int vpn) {
+        int base = (vpn & setMask) * ways;
+        int asid = currentAsid;
+        for (int i = base; i < base + ways; i++) {
+            if (vpns[i] == vpn && asids[i] == asid) {
+                lastUse[i] = ++useClock;
+                return ppns[i];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Caches a translation for the current ASID, replacing the existing entry
+     * for the page, an empty entry of its set, or else the least recently used one.
+     * @param vpn the virtual page number
+     * @param ppn the physical page number it maps to
+     * @return void
+     */
+    public void Insert(int vpn, int ppn) {
+        int base = (vpn & setMask) * ways;
+        int asid = currentAsid;
+        int victim = -1;
+        int oldest = base;
+        for (int i = base; i < base + ways; i++) {
+            if (vpns[i] == vpn && asids[i] == asid) {
+                victim = i;     // already cached: just update it
+                break;
+            }
+            if (vpns[i] == -1) {
+                if (victim == -1) {
+                    victim = i;
+                }
+            } else if (lastUse[i] < lastUse[oldest]) {
+                oldest = i;
+            }
+        }
+        if (victim == -1) {
+            victim = oldest;
+            evictions++;
+        }
+        vpns[victim] = vpn;
+        ppns[victim] = ppn;
+        asids[victim] = asid;
+        lastUse[victim] = ++useClock;
+    }
+
+    /**
+     * Makes an address space current: from now on only its entries match.
+     * @param asid the ASID of the process dispatched on this CPU
+     * @return void
+     */
+    public void SetAsid(int asid) {
+        currentAsid = asid;
+    }
+
+    /**
+     * Drops every translation of an address space.
+     * @param asid the ASID
+     * @return void
+     */
+    public void InvalidateAsid(int asid) {
+        for (int i = 0; i < vpns.length; i++) {
+            if (asids[i] == asid) {
+                vpns[i] = -1;
+                ppns[i] = -1;
+            }
+        }
+    }
+
+    /**
+     * Drops every translation that points at a physical page.
+     * @param ppn the physical page number
+     * @return void
+     */
+    public void InvalidatePhysical(int ppn) {
+        for (int i = 0; i < ppns.length; i++) {
+            if (ppns[i] == ppn) {
+                vpns[i] = -1;
+                ppns[i] = -1;
+            }
+        }
+    }
+
+    /**
+     * Empties the TLB.
+     * @return void
+     */
+    public void Flush() {
+        Arrays.fill(vpns, -1);
+        Arrays.fill(ppns, -1);
+        flushes++;
+        deferredPpnCount = 0;
+        deferredAsidCount = 0;
+        deferredFlush = false;
+    }
+
+    /**
+     * Queues InvalidatePhysical(ppn) until ApplyDeferred().
+     * @param ppn the physical page number
+     * @return void
+     */
+    public void DeferInvalidatePhysical(int ppn) {
+        if (deferredPpnCount < deferredLimit) {
+            deferredPpns[deferredPpnCount++] = ppn;
+        } else {
+            deferredFlush = true;
+        }
+    }
+
+    /**
+     * Queues InvalidateAsid(asid) until ApplyDeferred().
+     * @param asid the ASID
+     * @return void
+     */
+    public void DeferInvalidateAsid(int asid) {
+        if (deferredAsidCount < deferredLimit) {
+            deferredAsids[deferredAsidCount++] = asid;
+        } else {
+            deferredFlush = true;
+        }
+    }
+
+    /**
+     * Queues a Flush() until ApplyDeferred().
+     * @return void
+     */
+    public void DeferFlush() {
+        deferredFlush = true;
+    }
+
+    /**
+     * Carries out the deferred invalidations. Called by the kernel while the
+     * CPU's process is stopped, before it runs again or another one is dispatched.
+     * @return void
+     */
+    public void ApplyDeferred() {
+        if (deferredFlush) {
+            Flush();
+            return;
+        }
+        for (int i = 0; i < deferredPpnCount; i++) {
+            InvalidatePhysical(deferredPpns[i]);
+        }
+        for (int i = 0; i < deferredAsidCount; i++) {
+            InvalidateAsid(deferredAsids[i]);
+        }
+        deferredPpnCount = 0;
+        deferredAsidCount = 0;
+    }
+
+    /** @return the total number of entries */
+    public int Capacity() {
+        return vpns.length;
+    }
+
+    /** @return the number of sets */
+    public int Sets() {
+        return sets;
+    }
+
+    /** @return the number of entries per set */
+    public int Ways() {
+        return ways;
+    }
+
+    /**
+     * Formats the counters on one line.
+     * @return String the report
+     */
+    public String Report() {
+        long lookups = hits + misses;
+        return String.format("%d entries, %d-way: %d hits, %d misses (%.1f%% hit rate), %d evictions, %d flushes",
+                vpns.length, ways, hits, misses, lookups == 0 ? 0.0 : 100.0 * hits / lookups, evictions, flushes);
+    }
+
+    /**
+     * Formats the valid entries, one per line.
+     * @return String the entries
+     */
+    public String Dump() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < vpns.length; i++) {
+            if (vpns[i] != -1) {
+                sb.append(String.format("Set %d way %d: ASID=%d VPN=%d  →  PPN=%d%n",
+                        i / ways, i % ways, asids[i], vpns[i], ppns[i]));
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -1,4 +1,7 @@
 public abstract class UserlandProcess extends Process {
+    // Syscall frame of the PCB wrapping this process, assigned when the PCB is created
+    SyscallFrame syscallFrame;
+
     public UserlandProcess() {
         super();
     }
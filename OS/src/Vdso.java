@@ -0,0 +1,62 @@
+import java.util.HashMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Vdso class.
+ * -----------
+ * Read-only kernel data that userland may read directly on its own thread,
+ * without entering the kernel (like the vDSO page of a real OS).
+ *
+ * Only the Kernel thread writes here; readers never block it and never see
+ * a half-updated entry. The OS wrappers use it to answer GetPidByName()
+ * without a context switch; GetPID() and GetPriority() read the caller's
+ * own PCB, and the current time is read from the clock on the caller's thread.
+ */
+public class Vdso {
+    // Process name → lowest live PID with that name (what userland reads)
+    private static final ConcurrentHashMap<String, Integer> pidByName = new ConcurrentHashMap<>();
+
+    // Process name → every live PID with that name (kernel thread only)
+    private static final HashMap<String, TreeSet<Integer>> livePids = new HashMap<>();
+
+    /**
+     * Publishes a newly created process. Called by the kernel only.
+     * @param pcb the new process
+     */
+    static void PublishProcess(PCB pcb) {
+        TreeSet<Integer> pids = livePids.computeIfAbsent(pcb.getName(), name -> new TreeSet<>());
+        pids.add(pcb.pid);
+        pidByName.put(pcb.getName(), pids.first());
+    }
+
+    /**
+     * Withdraws a process that left the process table. Called by the kernel only.
+     * The name's entry is replaced in one step by the lowest remaining PID with
+     * that name, or removed if there is none, so a reader never finds it
+     * missing while a process with the name is still alive.
+     * @param pcb the process being removed
+     */
+    static void RetractProcess(PCB pcb) {
+        TreeSet<Integer> pids = livePids.get(pcb.getName());
+        if (pids == null || !pids.remove(pcb.pid)) {
+            return;
+        }
+        if (pids.isEmpty()) {
+            livePids.remove(pcb.getName());
+            pidByName.remove(pcb.getName());
+        } else {
+            pidByName.put(pcb.getName(), pids.first());
+        }
+    }
+
+    /**
+     * Looks up a process by its name.
+     * @param name the process name
+     * @return int the PID if found, or -1 if not found
+     */
+    public static int PidByName(String name) {
+        Integer pid = pidByName.get(name);
+        return pid == null ? -1 : pid;
+    }
+}
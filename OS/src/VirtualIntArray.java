@@ -0,0 +1,157 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * VirtualIntArray class.
+ * ----------------------
+ * An int[]-like view of a range of the calling process's virtual memory:
+ * element i is the little-endian int at address + 4 * i.
+ *
+ * Get/Set move one element through Hardware.ReadInt/WriteInt; CopyFrom and
+ * CopyTo move many elements with one block transfer, which translates each
+ * page once instead of once per byte.
+ *
+ * Like Hardware.Read/Write, it must only be used by the process that owns
+ * the memory.
+ */
+public class VirtualIntArray {
+    private final int address;
+    private final int length;
+
+    /**
+     * Constructor. Views memory the process already allocated.
+     * @param address virtual address of element 0
+     * @param length number of elements
+     * @return void
+     * @throws IllegalArgumentException if the address or length is negative
+     */
+    public VirtualIntArray(int address, int length) {
+        if (address < 0 || length < 0) {
+            throw new IllegalArgumentException("Bad virtual int array: address " + address + ", length " + length);
+        }
+        this.address = address;
+        this.length = length;
+    }
+
+    /**
+     * Allocates memory for a new array (rounded up to whole pages).
+     * @param length number of elements
+     * @return VirtualIntArray the array, or null if the memory could not be allocated
+     */
+    public static VirtualIntArray Allocate(int length) {
+        int address = OS.AllocateMemory(BytesFor(length));
+        if (address == -1) {
+            return null;
+        }
+        return new VirtualIntArray(address, length);
+    }
+
+    /**
+     * Frees the memory of an array made by Allocate().
+     * @return boolean true if the memory was freed
+     */
+    public boolean Free() {
+        return OS.FreeMemory(address, BytesFor(length));
+    }
+
+    /**
+     * @param length number of elements
+     * @return int whole pages' worth of bytes to hold them
+     */
+    private static int BytesFor(int length) {
+        int bytes = length * Integer.BYTES;
+        return Math.max(1, (bytes + Hardware.sizeOfPage - 1) / Hardware.sizeOfPage) * Hardware.sizeOfPage;
+    }
+
+    /**
+     * @param index the element
+     * @return int its value
+     */
+    public int Get(int index) {
+        return Hardware.ReadInt(AddressOf(index));
+    }
+
+    /**
+     * @param index the element
+     * @param value its new value
+     * @return void
+     */
+    public void Set(int index, int value) {
+        Hardware.WriteInt(AddressOf(index), value);
+    }
+
+    /**
+     * Copies ints from a Java array into this array.
+     * @param src the source
+     * @param srcOffset first element of src to copy
+     * @param index first element of this array to write
+     * @param count number of elements
+     * @return void
+     */
+    public void CopyFrom(int[] src, int srcOffset, int index, int count) {
+        CheckRange(index, count);
+        ByteBuffer bytes = ByteBuffer.allocate(count * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        bytes.asIntBuffer().put(src, srcOffset, count);
+        Hardware.WriteBlock(address + index * Integer.BYTES, bytes);
+    }
+
+    /**
+     * Copies ints from this array into a Java array.
+     * @param index first element of this array to read
+     * @param dst the destination
+     * @param dstOffset first element of dst to fill
+     * @param count number of elements
+     * @return void
+     */
+    public void CopyTo(int index, int[] dst, int dstOffset, int count) {
+        CheckRange(index, count);
+        ByteBuffer bytes = ByteBuffer.allocate(count * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        Hardware.ReadBlock(address + index * Integer.BYTES, bytes);
+        bytes.flip();
+        bytes.asIntBuffer().get(dst, dstOffset, count);
+    }
+
+    /**
+     * Copies the whole array into a new Java array.
+     * @return int[] the elements
+     */
+    public int[] ToArray() {
+        int[] result = new int[length];
+        CopyTo(0, result, 0, length);
+        return result;
+    }
+
+    /** @return the number of elements */
+    public int Length() {
+        return length;
+    }
+
+    /** @return the virtual address of element 0 */
+    public int Address() {
+        return address;
+    }
+
+    /**
+     * @param index the element
+     * @return int its virtual address
+     * @throws ArrayIndexOutOfBoundsException if there is no such element
+     */
+    private int AddressOf(int index) {
+        if (index < 0 || index >= length) {
+            throw new ArrayIndexOutOfBoundsException("Index " + index + " out of bounds for length " + length);
+        }
+        return address + index * Integer.BYTES;
+    }
+
+    /**
+     * @param index first element of a range
+     * @param count number of elements
+     * @return void
+     * @throws ArrayIndexOutOfBoundsException if the range does not fit in the array
+     */
+    private void CheckRange(int index, int count) {
+        if (index < 0 || count < 0 || index + count > length) {
+            throw new ArrayIndexOutOfBoundsException("Range [" + index + ", " + (index + count) + ") out of bounds for length " + length);
+        }
+    }
+}
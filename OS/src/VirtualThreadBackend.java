@@ -0,0 +1,18 @@
+/**
+ * VirtualThreadBackend Class
+ * --------------------------
+ * Runs every process on a Java virtual thread, so that the number of
+ * simulated processes is no longer limited by platform thread stacks.
+ * A process blocked on its semaphore gate unmounts from its carrier thread.
+ */
+public class VirtualThreadBackend implements ExecutionBackend {
+    @Override
+    public void Start(Runnable body) {
+        Thread.ofVirtual().start(body);
+    }
+
+    @Override
+    public String Name() {
+        return "virtual";
+    }
+}